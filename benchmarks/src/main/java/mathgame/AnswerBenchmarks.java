@@ -0,0 +1,62 @@
+package mathgame;
+
+import java.util.concurrent.TimeUnit;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.PlainDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//answer checking and parsing the answer field
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AnswerBenchmarks {
+    private Game game;
+    private PlainDocument document;
+    private AnswerParser parser;
+
+    @Setup
+    public void setup() throws BadLocationException {
+        game = new Game(new RandomQuestionSource(42));
+        game.generateQuestionForGUI(3);
+        document = new PlainDocument();
+        document.insertString(0, " 144 ", null);
+        parser = new AnswerParser();
+    }
+
+    //the log is reset every so often so memory stays bounded
+    @Benchmark
+    public boolean checkAnswer() {
+        if (game.getLog().size() >= 1 << 16) {
+            game = new Game(new RandomQuestionSource(42));
+            game.generateQuestionForGUI(3);
+        }
+        return game.checkAnswer(game.getActualAnswer());
+    }
+
+    //the old getText/trim/parseDouble path
+    @Benchmark
+    public long parseDouble() throws BadLocationException {
+        if (document.getText(0, document.getLength()).trim().isEmpty()) {
+            return 0;
+        }
+        return (long) Double.parseDouble(document.getText(0, document.getLength()));
+    }
+
+    //parsing the document in place
+    @Benchmark
+    public long parseDocument() {
+        return parser.parse(document) == AnswerParser.OK ? parser.getValue() : -1;
+    }
+}
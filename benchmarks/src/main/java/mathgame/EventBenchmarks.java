@@ -0,0 +1,71 @@
+package mathgame;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//publishing answer events and replaying recorded sessions
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EventBenchmarks {
+    @State(Scope.Thread)
+    public static class Bus {
+        GameEventBus bus;
+        Player player;
+        GameSession session;
+        volatile long scores;
+
+        @Setup
+        public void setup() {
+            bus = new GameEventBus();
+            bus.subscribe("bench-all", 1024, GameEventBus.ALL_EVENTS, GameEventBus.DROP, (event, endOfBatch) -> scores += event.score);
+            bus.subscribe("bench-turns", 64, 1 << GameEventBus.TURN_ENDED, GameEventBus.DROP, (event, endOfBatch) -> { });
+            player = new Player("bench");
+            session = new GameSession(GameSession.MAKE_A_WISH, 10, 0, new Player[] {player}, 42);
+        }
+
+        @TearDown
+        public void tearDown() {
+            bus.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Recording {
+        @Param({"10", "1000", "100000"})
+        public int size;
+
+        byte[] bytes;
+
+        @Setup
+        public void setup() {
+            bytes = Sessions.finished(1, size, true).getRecorder().toByteArray();
+        }
+    }
+
+    //publishing an answer to two subscribers (must not allocate or block the game thread)
+    @Benchmark
+    public void publish(Bus bus) {
+        bus.bus.answerSubmitted(bus.session, System.nanoTime(), 0, bus.player, 3, 17, 12, 12, true, 2_000_000_000L, 1);
+    }
+
+    //replaying a recorded session of size answers through the game rules (answers/s = ops/s * size)
+    @Benchmark
+    public long replay(Recording recording) throws IOException {
+        return new SessionReplay(recording.bytes).replay(0).answers;
+    }
+}
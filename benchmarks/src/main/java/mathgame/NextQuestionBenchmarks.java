@@ -0,0 +1,76 @@
+package mathgame;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+//question-to-question time in a time trial turn, with and without the prefetch ring buffer
+//(answer checking not included)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class NextQuestionBenchmarks {
+    @State(Scope.Thread)
+    public static class Turn {
+        @Param({"false", "true"})
+        public boolean prefetched;
+
+        GameSession session;
+        QuestionBuffer buffer;
+
+        @Setup
+        public void setup() {
+            session = new GameSession(GameSession.TIME_TRIAL, 0, 60, new Player[] {new Player("bench")}, 42);
+            if (prefetched) {
+                session.enablePrefetch(64);
+            }
+            session.startTurn();
+            buffer = session.getPrefetch();
+        }
+
+        @TearDown
+        public void tearDown() {
+            session.close();
+        }
+    }
+
+    //a player answers far slower than the producer refills, so the producer is idle before every take
+    @State(Scope.Thread)
+    public static class PacedTurn extends Turn {
+        @Setup(Level.Invocation)
+        public void waitForProducer() {
+            if (buffer != null) {
+                while (!buffer.isProducerIdle()) {
+                    Thread.onSpinWait();
+                }
+            }
+        }
+    }
+
+    //back to back calls; with prefetching this is bound by the producer thread
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public String throughput(Turn turn) {
+        return turn.session.nextQuestion();
+    }
+
+    //single calls at player pace, reported as percentiles
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public String latency(PacedTurn turn) {
+        return turn.session.nextQuestion();
+    }
+}
@@ -0,0 +1,97 @@
+package mathgame;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//question generation: the four basic operations, no-repeat sampling and advanced expressions
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class QuestionBenchmarks {
+    //only generateQuestion takes the operation, so the other benchmarks don't run once per value
+    @State(Scope.Thread)
+    public static class Operation {
+        @Param({"add", "sub", "mul", "div"})
+        public String operation;
+
+        Game game;
+        int opChoice;
+
+        @Setup
+        public void setup() {
+            game = new Game(new RandomQuestionSource(42));
+            opChoice = Arrays.asList("add", "sub", "mul", "div").indexOf(operation) + 1;
+        }
+    }
+
+    private NoRepeatSampler sampler;
+    private RandomQuestionSource samplerSource;
+    private RandomQuestionSource expressionSource;
+    private ExpressionGenerator advanced;
+    private Expression fixed;
+    private Expression huge;
+
+    @Setup
+    public void setup() {
+        sampler = new NoRepeatSampler();
+        samplerSource = new RandomQuestionSource(42);
+
+        expressionSource = new RandomQuestionSource(42);
+        advanced = new ExpressionGenerator(3, 5, 1000);
+        fixed = new ExpressionGenerator(5, 5, 1000).generate(new RandomQuestionSource(42));
+        huge = new Expression(5);
+        for (int i = 0; i < 5; i++) {
+            huge.pushOperand(999_999_937L - i);
+            if (i > 0) {
+                huge.pushOperator(3); //product of five 9-digit numbers overflows a long
+            }
+        }
+    }
+
+    @Benchmark
+    public String generateQuestion(Operation operation) {
+        return operation.game.generateQuestionForGUI(operation.opChoice);
+    }
+
+    //multiplication has the largest space, so its no-repeat rounds are the longest
+    @Benchmark
+    public long noRepeat() {
+        return sampler.next(3, samplerSource).answer;
+    }
+
+    @Benchmark
+    public Expression expressionGenerate() {
+        return advanced.generate(expressionSource);
+    }
+
+    @Benchmark
+    public long expressionEvaluateLong() {
+        return fixed.evaluateLong();
+    }
+
+    //the big-integer fallback
+    @Benchmark
+    public Expression.Rational expressionEvaluateBig() {
+        return huge.evaluate();
+    }
+
+    //a whole ready-to-display question (generate + evaluate + text) as the gui gets it
+    @Benchmark
+    public Question expressionQuestion() {
+        return advanced.nextQuestion(expressionSource);
+    }
+}
@@ -0,0 +1,34 @@
+package mathgame;
+
+//finished game sessions for the benchmarks to read from
+final class Sessions {
+    private Sessions() {
+    }
+
+    //plays a make a wish session to the end so the players have scores and answer logs
+    static GameSession finished(int numPlayers, int questionsPerPlayer) {
+        return finished(numPlayers, questionsPerPlayer, false);
+    }
+
+    static GameSession finished(int numPlayers, int questionsPerPlayer, boolean recorded) {
+        Player[] players = new Player[numPlayers];
+        for (int i = 0; i < numPlayers; i++) {
+            players[i] = new Player("player " + (i + 1));
+        }
+        GameSession session = new GameSession(GameSession.MAKE_A_WISH, questionsPerPlayer, 0, players);
+        if (recorded) {
+            session.enableRecording();
+        }
+        while (!session.isFinished()) {
+            session.startTurn();
+            int answered = 0;
+            while (session.nextQuestion() != null) {
+                //every third answer is wrong so the summary has both kinds of lines
+                long answer = session.getCurrentGame().getActualAnswer();
+                session.submitAnswer(answered++ % 3 == 0 ? answer + 1 : answer);
+            }
+            session.endTurn();
+        }
+        return session;
+    }
+}
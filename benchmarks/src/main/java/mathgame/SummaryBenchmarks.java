@@ -0,0 +1,67 @@
+package mathgame;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//opening the summary screen: leaderboard text, the answers table model and the first screenful of cells
+//(the rest is only read when scrolled into view), for size players or size answers
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SummaryBenchmarks {
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private GameSession multi;
+    private GameSession single;
+    private SummaryTableModel sortModel;
+
+    @Setup
+    public void setup() {
+        multi = Sessions.finished(size, 3);
+        single = Sessions.finished(1, size);
+        sortModel = new SummaryTableModel(single.getResults());
+    }
+
+    @Benchmark
+    public long players() {
+        return openSummary(2, multi);
+    }
+
+    @Benchmark
+    public long answers() {
+        return openSummary(1, single);
+    }
+
+    //sorting the answers table on a column, without boxing
+    @Benchmark
+    public int sort() {
+        sortModel.sortBy(SummaryTableModel.ACTUAL);
+        return sortModel.getRowCount();
+    }
+
+    private static long openSummary(int currentMode, GameSession session) {
+        Player[] results = session.getResults();
+        long acc = Main.buildSummaryText(currentMode, "Make a Wish", results).length();
+        SummaryTableModel model = new SummaryTableModel(results);
+        for (int row = 0; row < Math.min(30, model.getRowCount()); row++) {
+            for (int column = 0; column < model.getColumnCount(); column++) {
+                acc += model.getValueAt(row, column).hashCode();
+            }
+        }
+        return acc;
+    }
+}
@@ -0,0 +1,132 @@
+import java.util.Arrays;
+
+//append-only log of answered questions, stored as primitive columns
+//so recording an answer never builds a string; text is only made on demand
+public class AnswerLog {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] num1 = new int[INITIAL_CAPACITY];
+    private int[] num2 = new int[INITIAL_CAPACITY];
+    private byte[] opChoice = new byte[INITIAL_CAPACITY];
+    private long[] userAnswer = new long[INITIAL_CAPACITY];
+    private boolean[] correct = new boolean[INITIAL_CAPACITY];
+    private long[] timestamp = new long[INITIAL_CAPACITY];
+    private String[] expression; //question text of expression answers, allocated by the first one
+    private long[] expressionAnswer; //their answers (the operand columns can't describe them)
+    private int size = 0;
+
+    //records one answer (amortized O(1), columns double when full)
+    public void append(int n1, int n2, int op, long answer, boolean isCorrect, long timeMillis) {
+        if (size == num1.length) {
+            grow();
+        }
+        num1[size] = n1;
+        num2[size] = n2;
+        opChoice[size] = (byte) op;
+        userAnswer[size] = answer;
+        correct[size] = isCorrect;
+        timestamp[size] = timeMillis;
+        size++;
+    }
+
+    //records the answer to a multi-step expression question (op choice Question.EXPRESSION)
+    public void appendExpression(String expressionText, long actualAnswer, long answer, boolean isCorrect, long timeMillis) {
+        if (expression == null) {
+            expression = new String[num1.length];
+            expressionAnswer = new long[num1.length];
+        }
+        int i = size;
+        append(0, 0, Question.EXPRESSION, answer, isCorrect, timeMillis);
+        expression[i] = expressionText;
+        expressionAnswer[i] = actualAnswer;
+    }
+
+    private void grow() {
+        int newCapacity = num1.length * 2;
+        num1 = Arrays.copyOf(num1, newCapacity);
+        num2 = Arrays.copyOf(num2, newCapacity);
+        opChoice = Arrays.copyOf(opChoice, newCapacity);
+        userAnswer = Arrays.copyOf(userAnswer, newCapacity);
+        correct = Arrays.copyOf(correct, newCapacity);
+        timestamp = Arrays.copyOf(timestamp, newCapacity);
+        if (expression != null) {
+            expression = Arrays.copyOf(expression, newCapacity);
+            expressionAnswer = Arrays.copyOf(expressionAnswer, newCapacity);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getNum1(int i) {
+        return num1[i];
+    }
+
+    public int getNum2(int i) {
+        return num2[i];
+    }
+
+    public int getOpChoice(int i) {
+        return opChoice[i];
+    }
+
+    public long getUserAnswer(int i) {
+        return userAnswer[i];
+    }
+
+    public boolean isCorrect(int i) {
+        return correct[i];
+    }
+
+    public long getTimestamp(int i) {
+        return timestamp[i];
+    }
+
+    //expression text like "(3 + 4) * 5", null for two-operand questions
+    public String getExpression(int i) {
+        return expression == null ? null : expression[i];
+    }
+
+    //the correct answer is fully determined by the operands and the operation
+    public long getActualAnswer(int i) {
+        int op = opChoice[i];
+        if (op == Question.EXPRESSION) return expressionAnswer[i];
+        if (op == 1) return num1[i] + num2[i];
+        else if (op == 2) return num1[i] - num2[i];
+        else if (op == 3) return num1[i] * num2[i];
+        else if (op == 4) return num1[i] / num2[i]; //division questions always divide exactly
+        return 0;
+    }
+
+    public static String opSymbol(int op) {
+        if (op == 1) return "+";
+        else if (op == 2) return "-";
+        else if (op == 3) return "*";
+        else if (op == 4) return "/";
+        return "";
+    }
+
+    //renders the log in the summary screen's line format
+    public void appendTo(StringBuilder sb) {
+        for (int i = 0; i < size; i++) {
+            sb.append('\n');
+            if (opChoice[i] == Question.EXPRESSION) {
+                sb.append(expression[i]);
+            }
+            else {
+                sb.append(num1[i]).append(opSymbol(opChoice[i])).append(num2[i]);
+            }
+            sb.append(" = User:").append(userAnswer[i])
+                    .append(" | Actual:").append(getActualAnswer(i))
+                    .append(" | Correct:").append(correct[i]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(size * 48);
+        appendTo(sb);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,114 @@
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+
+//parses a typed answer straight from the characters into a long, without making a String or boxing
+//every answer in the game is a whole number, so the result is checked exactly (no double tolerance)
+public class AnswerParser {
+    //parse results
+    public static final int OK = 0;
+    public static final int EMPTY = 1;
+    public static final int NOT_A_NUMBER = 2;
+    public static final int NOT_A_WHOLE_NUMBER = 3; //e.g. "2.5" (but "4.0" is accepted as 4)
+    public static final int OUT_OF_RANGE = 4; //doesn't fit in a long
+
+    private final Segment segment = new Segment(); //reused view of the document's characters
+    private long value;
+
+    //parses the text field's document in place
+    public int parse(Document document) {
+        try {
+            document.getText(0, document.getLength(), segment);
+        }
+        catch (BadLocationException e) {
+            return NOT_A_NUMBER; //can't happen for the full range, but don't trust the input
+        }
+        return parse(segment);
+    }
+
+    //accepts optional surrounding spaces, an optional sign, digits and an optional ".000" tail
+    public int parse(CharSequence text) {
+        int end = text.length();
+        int i = 0;
+        while (i < end && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        while (end > i && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (i == end) {
+            return EMPTY;
+        }
+
+        boolean negative = false;
+        char first = text.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = (first == '-');
+            i++;
+        }
+
+        //accumulate as a negative number so Long.MIN_VALUE parses too
+        long result = 0;
+        boolean overflow = false;
+        int digits = 0;
+        while (i < end) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            int digit = c - '0';
+            if (result < Long.MIN_VALUE / 10 || (result == Long.MIN_VALUE / 10 && digit > 8)) {
+                overflow = true; //keep scanning so "99999999999999999999x" is still NOT_A_NUMBER
+            }
+            else {
+                result = result * 10 - digit;
+            }
+            digits++;
+            i++;
+        }
+
+        //optional fractional part, which must be all zeros to count as a whole number
+        boolean fraction = false;
+        int fractionDigits = 0;
+        if (i < end && text.charAt(i) == '.') {
+            i++;
+            while (i < end) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                if (c != '0') {
+                    fraction = true;
+                }
+                fractionDigits++;
+                i++;
+            }
+        }
+
+        if (i != end || (digits == 0 && fractionDigits == 0)) {
+            return NOT_A_NUMBER;
+        }
+        if (fraction) {
+            return NOT_A_WHOLE_NUMBER;
+        }
+        if (overflow || (!negative && result == Long.MIN_VALUE)) {
+            return OUT_OF_RANGE;
+        }
+        value = negative ? result : -result;
+        return OK;
+    }
+
+    //the parsed answer, valid after parse returned OK
+    public long getValue() {
+        return value;
+    }
+
+    //message shown to the player for a parse result
+    public static String describe(int status) {
+        if (status == EMPTY) return "Please enter an answer";
+        else if (status == NOT_A_WHOLE_NUMBER) return "Invalid input; the answer is a whole number";
+        else if (status == OUT_OF_RANGE) return "Invalid input; that number is too large";
+        else if (status == NOT_A_NUMBER) return "Invalid input; please enter a number";
+        return "";
+    }
+}
@@ -0,0 +1,96 @@
+import java.util.SplittableRandom;
+
+//synthetic player for simulations and load tests: answers correctly with a given accuracy
+//(lower on the operations it is weak at) and takes a random think time around the profile's mean
+public class BotPlayer {
+    //speed profiles: mean think time per question in millis
+    public static final String[] PROFILE_NAMES = {"fast", "average", "slow"};
+    public static final long[] PROFILE_THINK_MILLIS = {1500, 4000, 9000};
+
+    //think time distributions
+    public static final int THINK_EXPONENTIAL = 0; //memoryless, lots of quick answers and a long tail
+    public static final int THINK_LOGNORMAL = 1; //closer to real reaction times, rarely very quick
+    public static final int THINK_FIXED = 2; //always the mean
+    public static final String[] THINK_NAMES = {"exponential", "lognormal", "fixed"};
+    private static final double LOGNORMAL_SIGMA = 0.5;
+
+    private final double accuracy; //chance of answering correctly, 0-1
+    private final double[] opAccuracy = new double[5]; //chance of answering correctly per op choice 0-4
+    private final long meanThinkNanos;
+    private final SplittableRandom random;
+    private int thinkDistribution = THINK_EXPONENTIAL;
+
+    public BotPlayer(double accuracy, long meanThinkMillis, long seed) {
+        if (accuracy < 0 || accuracy > 1) {
+            throw new IllegalArgumentException("Accuracy must be between 0 and 1");
+        }
+        this.accuracy = accuracy;
+        for (int op = 0; op <= 4; op++) {
+            opAccuracy[op] = accuracy;
+        }
+        this.meanThinkNanos = meanThinkMillis * 1_000_000L;
+        this.random = new SplittableRandom(seed);
+    }
+
+    //mean think time of a named profile
+    public static long profileThinkMillis(String profile) {
+        for (int i = 0; i < PROFILE_NAMES.length; i++) {
+            if (PROFILE_NAMES[i].equalsIgnoreCase(profile)) {
+                return PROFILE_THINK_MILLIS[i];
+            }
+        }
+        throw new IllegalArgumentException("Unknown speed profile: " + profile);
+    }
+
+    public static int thinkDistribution(String name) {
+        for (int i = 0; i < THINK_NAMES.length; i++) {
+            if (THINK_NAMES[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown think time distribution: " + name);
+    }
+
+    public void setThinkDistribution(int distribution) {
+        if (distribution < THINK_EXPONENTIAL || distribution > THINK_FIXED) {
+            throw new IllegalArgumentException("Unknown think time distribution: " + distribution);
+        }
+        thinkDistribution = distribution;
+    }
+
+    //makes the bot worse at one operation: weakness 0 keeps its accuracy, 1 means it always gets it wrong
+    public void setWeakness(int opChoice, double weakness) {
+        if (weakness < 0 || weakness > 1) {
+            throw new IllegalArgumentException("Weakness must be between 0 and 1");
+        }
+        opAccuracy[opChoice] = accuracy * (1 - weakness);
+    }
+
+    public double getAccuracy(int opChoice) {
+        return opAccuracy[opChoice];
+    }
+
+    //the bot's answer to the current question of the session
+    public long answer(GameSession session) {
+        Game game = session.getCurrentGame();
+        long actual = game.getActualAnswer();
+        if (random.nextDouble() < opAccuracy[game.getCurrentOpChoice()]) {
+            return actual;
+        }
+        return actual + 1 + random.nextInt(3); //a near miss
+    }
+
+    //how long the bot takes to answer, in nanos
+    public long thinkNanos() {
+        switch (thinkDistribution) {
+            case THINK_LOGNORMAL:
+                //mu chosen so the mean stays meanThinkNanos
+                double mu = Math.log(meanThinkNanos) - LOGNORMAL_SIGMA * LOGNORMAL_SIGMA / 2;
+                return (long) Math.exp(mu + LOGNORMAL_SIGMA * random.nextGaussian());
+            case THINK_FIXED:
+                return meanThinkNanos;
+            default:
+                return (long) (-Math.log(1.0 - random.nextDouble()) * meanThinkNanos);
+        }
+    }
+}
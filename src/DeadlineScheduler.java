@@ -0,0 +1,155 @@
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+//one timing-wheel thread that serves the countdowns of every time trial in the jvm
+//time left is always worked out from a monotonic start instant (System.nanoTime), never by counting
+//ticks, so a stalled gui thread or a late wakeup can't stretch the limit; listeners are only called
+//when the displayed whole second actually changes, and once more when the deadline passes
+public class DeadlineScheduler {
+    private static final long TICK_NANOS = 10_000_000L; //10ms wheel resolution
+    private static final int WHEEL_SIZE = 256; //slots, so one turn of the wheel is 2.56s
+    private static final long SECOND = 1_000_000_000L;
+
+    //called on the scheduler thread; hand work to the gui with SwingUtilities.invokeLater
+    public interface Listener {
+        void secondsLeft(int seconds);
+
+        void expired();
+    }
+
+    //a scheduled countdown; cancel it when the turn ends early
+    public static class Handle {
+        private final long startNanos;
+        private final long deadlineNanos;
+        private final Listener listener;
+        private volatile boolean cancelled = false;
+
+        //wheel bookkeeping, only touched by the scheduler thread
+        private long rounds;
+        private int lastSeconds = -1;
+        private Handle next;
+
+        private Handle(long startNanos, long durationNanos, Listener listener) {
+            this.startNanos = startNanos;
+            this.deadlineNanos = startNanos + durationNanos;
+            this.listener = listener;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        //whole seconds left at the given instant, rounded up (so a fresh 60s countdown shows 60)
+        public int secondsLeft(long nowNanos) {
+            long left = deadlineNanos - nowNanos;
+            return left <= 0 ? 0 : (int) ((left + SECOND - 1) / SECOND);
+        }
+
+        public long getStartNanos() {
+            return startNanos;
+        }
+
+        public long getDeadlineNanos() {
+            return deadlineNanos;
+        }
+    }
+
+    private final Handle[] wheel = new Handle[WHEEL_SIZE];
+    private final ConcurrentLinkedQueue<Handle> incoming = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private final long originNanos = System.nanoTime();
+    private long processedTicks = 0; //ticks handled so far, counted from originNanos
+
+    private static class Holder {
+        static final DeadlineScheduler INSTANCE = new DeadlineScheduler();
+    }
+
+    public static DeadlineScheduler get() {
+        return Holder.INSTANCE;
+    }
+
+    public DeadlineScheduler() {
+        thread = new Thread(this::run, "deadline-scheduler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    //starts a countdown of durationNanos from startNanos (a System.nanoTime value)
+    public Handle schedule(long startNanos, long durationNanos, Listener listener) {
+        Handle handle = new Handle(startNanos, durationNanos, listener);
+        incoming.add(handle);
+        LockSupport.unpark(thread);
+        return handle;
+    }
+
+    private void run() {
+        while (true) {
+            Handle handle;
+            while ((handle = incoming.poll()) != null) {
+                fire(handle, System.nanoTime());
+            }
+
+            //catch up on every tick that has passed (after a stall this processes several at once)
+            long nowTicks = (System.nanoTime() - originNanos) / TICK_NANOS;
+            while (processedTicks < nowTicks) {
+                processedTicks++;
+                processSlot((int) (processedTicks % WHEEL_SIZE));
+            }
+
+            long nextTickNanos = originNanos + (processedTicks + 1) * TICK_NANOS;
+            LockSupport.parkNanos(this, nextTickNanos - System.nanoTime());
+        }
+    }
+
+    private void processSlot(int slot) {
+        Handle handle = wheel[slot];
+        wheel[slot] = null;
+        long now = System.nanoTime();
+        while (handle != null) {
+            Handle next = handle.next;
+            handle.next = null;
+            if (handle.cancelled) {
+                //dropped
+            }
+            else if (handle.rounds > 0) {
+                handle.rounds--;
+                insert(handle, slot);
+            }
+            else {
+                fire(handle, now);
+            }
+            handle = next;
+        }
+    }
+
+    //notifies the listener if the displayed second changed, then re-arms for the next second boundary
+    private void fire(Handle handle, long now) {
+        if (handle.cancelled) {
+            return;
+        }
+        int seconds = handle.secondsLeft(now);
+        if (seconds != handle.lastSeconds) {
+            handle.lastSeconds = seconds;
+            handle.listener.secondsLeft(seconds);
+        }
+        if (now - handle.deadlineNanos >= 0) {
+            handle.listener.expired();
+            return;
+        }
+
+        //next time the display changes: the next whole second before the deadline, or the deadline itself
+        long nextChange = handle.deadlineNanos - (long) (seconds - 1) * SECOND;
+        long ticks = Math.max(1, (nextChange - originNanos + TICK_NANOS - 1) / TICK_NANOS - processedTicks);
+        handle.rounds = (ticks - 1) / WHEEL_SIZE;
+        insert(handle, (int) ((processedTicks + ticks) % WHEEL_SIZE));
+    }
+
+    private void insert(Handle handle, int slot) {
+        handle.next = wheel[slot];
+        wheel[slot] = handle;
+    }
+}
@@ -0,0 +1,234 @@
+import java.math.BigInteger;
+
+//arithmetic expression in postfix form, stored as two parallel primitive arrays and reused between
+//questions, so generating and evaluating one allocates nothing on the common path
+//evaluation runs on longs with overflow checks (Math.*Exact) and only falls back to exact
+//big-integer fractions when a result overflows or a division isn't exact
+public class Expression {
+    public static final byte OPERAND = 0; //otherwise the token is an op choice 1-4 (+ - * /)
+
+    private final byte[] kind;
+    private final long[] value; //operand values (unused for operators)
+    private final long[] stack; //evaluation stack, reused
+    private int length = 0;
+
+    //expressions with up to maxOperands operands (and so maxOperands - 1 operators)
+    public Expression(int maxOperands) {
+        int tokens = 2 * maxOperands - 1;
+        kind = new byte[tokens];
+        value = new long[tokens];
+        stack = new long[maxOperands];
+    }
+
+    public void clear() {
+        length = 0;
+    }
+
+    public void pushOperand(long operand) {
+        kind[length] = OPERAND;
+        value[length++] = operand;
+    }
+
+    public void pushOperator(int opChoice) {
+        kind[length++] = (byte) opChoice;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int kind(int i) {
+        return kind[i];
+    }
+
+    public long value(int i) {
+        return value[i];
+    }
+
+    public void setValue(int i, long operand) {
+        value[i] = operand;
+    }
+
+    //evaluates on longs; throws ArithmeticException on overflow, an inexact division or division by zero
+    public long evaluateLong() {
+        int top = 0;
+        for (int i = 0; i < length; i++) {
+            if (kind[i] == OPERAND) {
+                stack[top++] = value[i];
+                continue;
+            }
+            long b = stack[--top];
+            long a = stack[top - 1];
+            long result;
+            switch (kind[i]) {
+                case 1: result = Math.addExact(a, b); break;
+                case 2: result = Math.subtractExact(a, b); break;
+                case 3: result = Math.multiplyExact(a, b); break;
+                default:
+                    if (b == 0 || a % b != 0 || (a == Long.MIN_VALUE && b == -1)) {
+                        throw new ArithmeticException("Division isn't a whole number");
+                    }
+                    result = a / b;
+            }
+            stack[top - 1] = result;
+        }
+        return stack[0];
+    }
+
+    //exact value: the long fast path when it works, big-integer fractions otherwise
+    public Rational evaluate() {
+        try {
+            return Rational.of(evaluateLong());
+        }
+        catch (ArithmeticException e) {
+            return evaluateExact();
+        }
+    }
+
+    //exact value with big-integer fractions (division by zero still throws ArithmeticException)
+    public Rational evaluateExact() {
+        Rational[] exact = new Rational[stack.length];
+        int top = 0;
+        for (int i = 0; i < length; i++) {
+            if (kind[i] == OPERAND) {
+                exact[top++] = Rational.of(value[i]);
+                continue;
+            }
+            Rational b = exact[--top];
+            Rational a = exact[top - 1];
+            switch (kind[i]) {
+                case 1: exact[top - 1] = a.add(b); break;
+                case 2: exact[top - 1] = a.subtract(b); break;
+                case 3: exact[top - 1] = a.multiply(b); break;
+                default: exact[top - 1] = a.divide(b);
+            }
+        }
+        return exact[0];
+    }
+
+    private static int precedence(int opChoice) {
+        return opChoice <= 2 ? 1 : 2;
+    }
+
+    //appends the infix form with only the parentheses precedence needs, e.g. (3 + 4) * 5 - 2
+    public void appendInfix(StringBuilder sb) {
+        appendInfix(sb, length - 1, 0);
+    }
+
+    //writes the subexpression ending at token end (which starts at token begin)
+    private void appendInfix(StringBuilder sb, int end, int begin) {
+        if (kind[end] == OPERAND) {
+            sb.append(value[end]);
+            return;
+        }
+        int op = kind[end];
+        int rightEnd = end - 1;
+        int rightBegin = subexpressionStart(rightEnd);
+        int leftEnd = rightBegin - 1;
+
+        boolean leftParens = kind[leftEnd] != OPERAND && precedence(kind[leftEnd]) < precedence(op);
+        boolean rightParens = kind[rightEnd] != OPERAND && (precedence(kind[rightEnd]) < precedence(op)
+                || (precedence(kind[rightEnd]) == precedence(op) && (op == 2 || op == 4)));
+
+        if (leftParens) sb.append('(');
+        appendInfix(sb, leftEnd, begin);
+        if (leftParens) sb.append(')');
+        sb.append(' ').append(AnswerLog.opSymbol(op)).append(' ');
+        if (rightParens) sb.append('(');
+        appendInfix(sb, rightEnd, rightBegin);
+        if (rightParens) sb.append(')');
+    }
+
+    //first token of the subexpression that ends at token end
+    private int subexpressionStart(int end) {
+        int needed = 1; //operands still to find
+        int i = end;
+        while (true) {
+            needed += kind[i] == OPERAND ? -1 : 1;
+            if (needed == 0) {
+                return i;
+            }
+            i--;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        appendInfix(sb);
+        return sb.toString();
+    }
+
+    //exact fraction, always in lowest terms with a positive denominator
+    public static final class Rational {
+        public final BigInteger numerator;
+        public final BigInteger denominator;
+
+        private Rational(BigInteger numerator, BigInteger denominator) {
+            if (denominator.signum() == 0) {
+                throw new ArithmeticException("Division by zero");
+            }
+            if (denominator.signum() < 0) {
+                numerator = numerator.negate();
+                denominator = denominator.negate();
+            }
+            BigInteger gcd = numerator.gcd(denominator);
+            if (!gcd.equals(BigInteger.ONE) && gcd.signum() != 0) {
+                numerator = numerator.divide(gcd);
+                denominator = denominator.divide(gcd);
+            }
+            this.numerator = numerator;
+            this.denominator = denominator;
+        }
+
+        public static Rational of(long value) {
+            return new Rational(BigInteger.valueOf(value), BigInteger.ONE);
+        }
+
+        public Rational add(Rational other) {
+            return new Rational(numerator.multiply(other.denominator).add(other.numerator.multiply(denominator)),
+                    denominator.multiply(other.denominator));
+        }
+
+        public Rational subtract(Rational other) {
+            return new Rational(numerator.multiply(other.denominator).subtract(other.numerator.multiply(denominator)),
+                    denominator.multiply(other.denominator));
+        }
+
+        public Rational multiply(Rational other) {
+            return new Rational(numerator.multiply(other.numerator), denominator.multiply(other.denominator));
+        }
+
+        public Rational divide(Rational other) {
+            return new Rational(numerator.multiply(other.denominator), denominator.multiply(other.numerator));
+        }
+
+        public boolean isWholeNumber() {
+            return denominator.equals(BigInteger.ONE);
+        }
+
+        //true if this is a whole number that fits in a long
+        public boolean fitsLong() {
+            return isWholeNumber() && numerator.bitLength() < 64;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Rational)) {
+                return false;
+            }
+            Rational other = (Rational) o;
+            return numerator.equals(other.numerator) && denominator.equals(other.denominator);
+        }
+
+        @Override
+        public int hashCode() {
+            return numerator.hashCode() * 31 + denominator.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return isWholeNumber() ? numerator.toString() : numerator + "/" + denominator;
+        }
+    }
+}
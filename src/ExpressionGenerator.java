@@ -0,0 +1,104 @@
+//random multi-step questions for advanced players, e.g. "What is (312 + 45) * 7 - 96 / 8 ?"
+//builds a random expression tree directly in postfix (an operator is emitted whenever at least two
+//subexpressions are waiting and a coin flip says so), so there is no tree of objects to allocate
+//division only ever joins two plain numbers and the dividend is made as divisor * quotient,
+//so every question still has a whole number answer that can be typed in
+//the operand count and size are checked up front so that no expression can overflow a long (see
+//fitsInLong), so every draw is a question and the fast long evaluation is always exact
+public class ExpressionGenerator {
+    public static final int MAX_OPERAND_LIMIT = 1_000_000_000;
+    private static final int MAX_DIVISOR = 12;
+
+    private final int minOperands;
+    private final int maxOperands;
+    private final int maxOperand; //operands are 0..maxOperand
+    private final Expression expression;
+    private final StringBuilder infix = new StringBuilder(64);
+
+    public ExpressionGenerator(int minOperands, int maxOperands, int maxOperand) {
+        if (minOperands < 2 || maxOperands < minOperands) {
+            throw new IllegalArgumentException("Need at least 2 operands");
+        }
+        if (maxOperand < 1 || maxOperand > MAX_OPERAND_LIMIT) {
+            throw new IllegalArgumentException("Operands must be between 1 and " + MAX_OPERAND_LIMIT);
+        }
+        if (!fitsInLong(maxOperands, maxOperand)) {
+            throw new IllegalArgumentException(maxOperands + " operands up to " + maxOperand + " can overflow a long answer");
+        }
+        this.minOperands = minOperands;
+        this.maxOperands = maxOperands;
+        this.maxOperand = maxOperand;
+        this.expression = new Expression(maxOperands);
+    }
+
+    //true if every expression of up to n operands in 0..max has all its values within a long: by induction
+    //a subexpression of k operands is at most (max + 1)^k - 1 in size (x + y - 1 <= xy covers sums and
+    //differences, products multiply the bounds, a quotient is at most max), so (max + 1)^n - 1 must fit
+    static boolean fitsInLong(int operands, int max) {
+        long bound = 1;
+        for (int i = 0; i < operands; i++) {
+            if (bound > Long.MAX_VALUE / (max + 1L)) {
+                return false;
+            }
+            bound *= max + 1L;
+        }
+        return true;
+    }
+
+    //fills the reusable expression with a new random one and returns it
+    public Expression generate(QuestionSource source) {
+        expression.clear();
+        int operands = minOperands + source.nextInt(maxOperands - minOperands + 1);
+        int pushed = 0;
+        int waiting = 0; //subexpressions on the stack
+        boolean lastTwoAreNumbers = false; //the top two stack entries are plain operands
+        while (pushed < operands || waiting > 1) {
+            boolean emitOperator = waiting > 1 && (pushed == operands || source.nextInt(2) == 0);
+            if (!emitOperator) {
+                lastTwoAreNumbers = waiting > 0 && expression.kind(expression.length() - 1) == Expression.OPERAND;
+                expression.pushOperand(source.nextInt(maxOperand + 1));
+                pushed++;
+                waiting++;
+                continue;
+            }
+
+            int op = source.nextOpChoice();
+            if (op == 4 && !lastTwoAreNumbers) {
+                op = 3; //division only between two numbers
+            }
+            if (op == 4) {
+                int end = expression.length();
+                int divisor = 1 + source.nextInt(Math.min(MAX_DIVISOR, maxOperand));
+                int quotient = source.nextInt(maxOperand / divisor + 1);
+                expression.setValue(end - 2, (long) divisor * quotient);
+                expression.setValue(end - 1, divisor);
+            }
+            expression.pushOperator(op);
+            waiting--;
+            lastTwoAreNumbers = false;
+        }
+        return expression;
+    }
+
+    //a ready-to-display question (never throws, the constructor ruled out overflow)
+    public Question nextQuestion(QuestionSource source) {
+        generate(source);
+        long answer = expression.evaluateLong();
+        infix.setLength(0);
+        expression.appendInfix(infix);
+        String expressionText = infix.toString();
+        return new Question(-1, 0, 0, Question.EXPRESSION, answer, "What is " + expressionText + " ?", expressionText);
+    }
+
+    public int getMinOperands() {
+        return minOperands;
+    }
+
+    public int getMaxOperands() {
+        return maxOperands;
+    }
+
+    public int getMaxOperand() {
+        return maxOperand;
+    }
+}
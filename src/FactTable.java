@@ -0,0 +1,118 @@
+//every possible question ("fact") for each operation, built once and shared read-only by all sessions
+//operands are [0,20) for +,-,* and a 10x5 grid of quotients/divisors for division, so the whole space
+//is small enough to precompute: generating a question becomes an index lookup with no allocation
+public final class FactTable {
+    public static final int OPERAND_RANGE = 20; //operands for +,-,* are 0..19
+    public static final int MAX_QUOTIENT = 10; //division answers are 1..10
+    public static final int MAX_DIVISOR = 5; //divisors are 1..5
+
+    private final Question[][] factsByOp = new Question[5][]; //indexed by op choice 1-4
+    private final int[] firstFactId = new int[6]; //dense fact ids: op's facts start at firstFactId[op]
+    private final Question[] factsById;
+
+    //lazily built on first use (holder idiom, thread safe without locking)
+    private static class Holder {
+        static final FactTable INSTANCE = new FactTable();
+    }
+
+    public static FactTable get() {
+        return Holder.INSTANCE;
+    }
+
+    private FactTable() {
+        firstFactId[1] = 0;
+        factsByOp[1] = new Question[OPERAND_RANGE * OPERAND_RANGE];
+        for (int a = 0; a < OPERAND_RANGE; a++) {
+            for (int b = 0; b < OPERAND_RANGE; b++) {
+                int index = a * OPERAND_RANGE + b;
+                factsByOp[1][index] = fact(firstFactId[1] + index, a, b, 1, a + b);
+            }
+        }
+
+        //subtraction keeps num1 >= num2, so only the lower triangle (with the diagonal) exists
+        firstFactId[2] = firstFactId[1] + factsByOp[1].length;
+        factsByOp[2] = new Question[OPERAND_RANGE * (OPERAND_RANGE + 1) / 2];
+        for (int a = 0; a < OPERAND_RANGE; a++) {
+            for (int b = 0; b <= a; b++) {
+                int index = subtractionIndex(a, b);
+                factsByOp[2][index] = fact(firstFactId[2] + index, a, b, 2, a - b);
+            }
+        }
+
+        firstFactId[3] = firstFactId[2] + factsByOp[2].length;
+        factsByOp[3] = new Question[OPERAND_RANGE * OPERAND_RANGE];
+        for (int a = 0; a < OPERAND_RANGE; a++) {
+            for (int b = 0; b < OPERAND_RANGE; b++) {
+                int index = a * OPERAND_RANGE + b;
+                factsByOp[3][index] = fact(firstFactId[3] + index, a, b, 3, a * b);
+            }
+        }
+
+        //division is built from quotient * divisor so every answer is a whole number
+        firstFactId[4] = firstFactId[3] + factsByOp[3].length;
+        factsByOp[4] = new Question[MAX_QUOTIENT * MAX_DIVISOR];
+        for (int q = 1; q <= MAX_QUOTIENT; q++) {
+            for (int d = 1; d <= MAX_DIVISOR; d++) {
+                int index = (q - 1) * MAX_DIVISOR + (d - 1);
+                factsByOp[4][index] = fact(firstFactId[4] + index, q * d, d, 4, q);
+            }
+        }
+
+        firstFactId[5] = firstFactId[4] + factsByOp[4].length;
+        factsById = new Question[firstFactId[5]];
+        for (int op = 1; op <= 4; op++) {
+            System.arraycopy(factsByOp[op], 0, factsById, firstFactId[op], factsByOp[op].length);
+        }
+    }
+
+    private static Question fact(int factId, int num1, int num2, int opChoice, int answer) {
+        String text = ("What is "+num1+" "+AnswerLog.opSymbol(opChoice)+" "+num2+" ?").intern();
+        return new Question(factId, num1, num2, opChoice, answer, text);
+    }
+
+    private static int subtractionIndex(int larger, int smaller) {
+        return larger * (larger + 1) / 2 + smaller;
+    }
+
+    //random fact for the op with the same odds as drawing the operands directly
+    //(e.g. 7-3 is twice as likely as 7-7, just like drawing two numbers and swapping)
+    public Question randomFact(int opChoice, QuestionSource source) {
+        if (opChoice == 4) {
+            int q = source.nextInt(MAX_QUOTIENT);
+            int d = source.nextInt(MAX_DIVISOR);
+            return factsByOp[4][q * MAX_DIVISOR + d];
+        }
+
+        int a = source.nextInt(OPERAND_RANGE);
+        int b = source.nextInt(OPERAND_RANGE);
+        if (opChoice == 2) {
+            return a >= b ? factsByOp[2][subtractionIndex(a, b)] : factsByOp[2][subtractionIndex(b, a)];
+        }
+        if (opChoice != 1 && opChoice != 3) {
+            throw new IllegalArgumentException("Unknown op choice: " + opChoice);
+        }
+        return factsByOp[opChoice][a * OPERAND_RANGE + b];
+    }
+
+    //number of distinct facts for the op
+    public int size(int opChoice) {
+        return factsByOp[opChoice].length;
+    }
+
+    public Question fact(int opChoice, int index) {
+        return factsByOp[opChoice][index];
+    }
+
+    //total number of facts across all ops (fact ids are 0..totalFacts-1)
+    public int totalFacts() {
+        return factsById.length;
+    }
+
+    public Question byId(int factId) {
+        return factsById[factId];
+    }
+
+    public int firstFactId(int opChoice) {
+        return firstFactId[opChoice];
+    }
+}
@@ -0,0 +1,25 @@
+import java.nio.charset.StandardCharsets;
+
+//file names made from player names (practice profiles, recordings)
+public final class FileNames {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private FileNames() {
+    }
+
+    //lowercase letters, digits, '_' and '-' are kept and every other utf-8 byte becomes %xx, so two
+    //different names never share a file ("Sam" is "%53am", "sam" stays "sam"); the result is all
+    //lowercase, which keeps it distinct on case-insensitive file systems too
+    public static String forName(String name) {
+        StringBuilder out = new StringBuilder(name.length());
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            if ((b >= 'a' && b <= 'z') || (b >= '0' && b <= '9') || b == '_' || b == '-') {
+                out.append((char) b);
+            }
+            else {
+                out.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+        }
+        return out.toString();
+    }
+}
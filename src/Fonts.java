@@ -0,0 +1,16 @@
+import java.awt.Font;
+import java.util.HashMap;
+import java.util.Map;
+
+//fonts shared by every panel: each family/style/size is created once and then reused
+//(only used on the event dispatch thread, like the rest of swing, so a plain map is enough)
+public final class Fonts {
+    private static final Map<String, Font> CACHE = new HashMap<>();
+
+    private Fonts() {
+    }
+
+    public static Font get(String family, int style, int size) {
+        return CACHE.computeIfAbsent(family + '-' + style + '-' + size, key -> new Font(family, style, size));
+    }
+}
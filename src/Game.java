@@ -1,75 +1,102 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
 //game logic class
+//score and log are safe to read from other threads (a live scoreboard) while the owning player answers
 public class Game {
-    public int score = 0;
-    public String summary="";
+    private final AtomicInteger score = new AtomicInteger(); //lock-free, readers always see the latest score
+    private volatile AnswerLog log = new AnswerLog(); //every answered question for the summary
 
     //store the current question details for the gui to validate the answer
     private int currentNum1;
     private int currentNum2;
     private int currentOpChoice;
-    private double currentActualAnswer;
+    private long currentActualAnswer;
+    private String currentExpression; //infix text of expression questions, which the log can't rebuild from operands
+    private int currentFactId;
+
+    private final QuestionSource source; //random draws for the operands
+
+    public Game(QuestionSource source) {
+        this.source = source;
+    }
+
+    public Game() {
+        this(new RandomQuestionSource());
+    }
 
     //methods to support the gui flow
     public String generateQuestionForGUI(int opChoice) {
-        currentOpChoice = opChoice;
-        currentNum1 = (int)(Math.random() * 20);
-        currentNum2 = (int)(Math.random() * 20);
+        return ask(createQuestion(opChoice, source));
+    }
 
-        String questionString = "";
+    //makes the given question the current one and returns its text
+    public String ask(Question question) {
+        currentNum1 = question.num1;
+        currentNum2 = question.num2;
+        currentOpChoice = question.opChoice;
+        currentActualAnswer = question.answer;
+        currentFactId = question.factId;
+        currentExpression = question.expression;
+        return question.text;
+    }
 
-        if (opChoice == 1) { //addition
-            currentActualAnswer = currentNum1 + currentNum2;
-            questionString = "What is "+currentNum1+" + "+currentNum2+" ?";
-        }
-        else if (opChoice == 2) { //subtraction
-            //make sure num1 >= num2 for positive results
-            if (currentNum1 < currentNum2) {
-                int temp = currentNum1;
-                currentNum1 = currentNum2;
-                currentNum2 = temp;
-            }
-            currentActualAnswer = currentNum1 - currentNum2;
-            questionString = "What is "+currentNum1+" - "+currentNum2+" ?";
+    //picks a question for the op choice (static so it can run ahead of time off the gui thread)
+    //questions come from the shared precomputed fact table, so this never allocates
+    public static Question createQuestion(int opChoice, QuestionSource source) {
+        return FactTable.get().randomFact(opChoice, source);
+    }
+
+    //same, but with no repeats until the op's facts run out when a sampler is given
+    public static Question createQuestion(int opChoice, QuestionSource source, NoRepeatSampler sampler) {
+        return sampler == null ? createQuestion(opChoice, source) : sampler.next(opChoice, source);
+    }
+
+    public boolean checkAnswer(long userAnswer) {
+        //every answer is a whole number, so compare exactly
+        boolean correct = userAnswer == currentActualAnswer;
+
+        //log question/result to the answer log (rendered to text only for the summary)
+        if (currentOpChoice == Question.EXPRESSION) {
+            log.appendExpression(currentExpression, currentActualAnswer, userAnswer, correct, System.currentTimeMillis());
         }
-        else if (opChoice == 3) { //multiplication
-            currentActualAnswer = currentNum1 * currentNum2;
-            questionString = "What is "+currentNum1+" * "+currentNum2+" ?";
+        else {
+            log.append(currentNum1, currentNum2, currentOpChoice, userAnswer, correct, System.currentTimeMillis());
         }
-        else if (opChoice == 4) { //division
-            //m ake sure division gives int result
-            currentNum1 = (int)(Math.random() * 10) + 1; //num1 up to 10
-            currentNum2 = (int)(Math.random() * 5) + 1; //num2 up to 5
-            currentActualAnswer = currentNum1 * currentNum2; //dividend
-            int temp = (int)currentActualAnswer;
-            currentActualAnswer = (double)temp / currentNum2;
-            currentNum1 = temp;
-            questionString = "What is "+currentNum1+" / "+currentNum2+" ?";
+
+        if(correct){
+            score.incrementAndGet();
         }
+        return correct;
+    }
 
-        return questionString;
+    public int getScore() {
+        return score.get();
     }
 
-    public boolean checkAnswer(double userAnswer) {
-        //compare user answer to actual answer, allowing a small tolerance for doubles
-        boolean correct = Math.abs(userAnswer - currentActualAnswer) < 0.001;
+    //carries a score over from an earlier turn
+    public void setScore(int newScore) {
+        score.set(newScore);
+    }
 
-        //log question/result to the summary string
-        String op = "";
-        if (currentOpChoice == 1) op = "+";
-        else if (currentOpChoice == 2) op = "-";
-        else if (currentOpChoice == 3) op = "*";
-        else if (currentOpChoice == 4) op = "/";
+    public AnswerLog getLog() {
+        return log;
+    }
 
-        summary += "\n"+currentNum1+op+currentNum2+" = User:"+userAnswer+" | Actual:"+currentActualAnswer+" | Correct:"+correct;
+    public void setLog(AnswerLog answerLog) {
+        log = answerLog;
+    }
 
-        if(correct){
-            ++score;
-        }
-        return correct;
+    public int getCurrentOpChoice() {
+        return currentOpChoice;
+    }
+
+    //fact table id of the current question
+    public int getCurrentFactId() {
+        return currentFactId;
     }
 
     //helper to get the actual answer for display after an incorrect attempt
-    public double getActualAnswer() {
+    public long getActualAnswer() {
         return currentActualAnswer;
     }
 }
\ No newline at end of file
@@ -0,0 +1,185 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+//client for GameServer
+//  java GameClient [host] [port]                  interactive: type protocol commands, see the replies
+//  java GameClient --load <players> [rooms] [questions] [host] [port]
+//                                                 load test: bots over loopback answering every question
+public class GameClient implements AutoCloseable {
+    private final Socket socket;
+    private final BufferedReader in;
+    private final Writer out;
+
+    public GameClient(String host, int port) throws IOException {
+        socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    //sends one command line
+    public void send(String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+        out.flush();
+    }
+
+    //reads one reply line (null if the server closed the connection)
+    public String readLine() throws IOException {
+        return in.readLine();
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    //works out the answer to a "What is a op b ?" question the way a perfect player would
+    public static long solve(String question) {
+        String[] parts = question.split(" ");
+        long a = Long.parseLong(parts[2]);
+        long b = Long.parseLong(parts[4]);
+        switch (parts[3]) {
+            case "+": return a + b;
+            case "-": return a - b;
+            case "*": return a * b;
+            case "/": return a / b;
+            default: throw new IllegalArgumentException("Unknown question: " + question);
+        }
+    }
+
+    //one bot: joins a room, plays a make a wish game answering everything, then quits
+    private static int playBot(String host, int port, String room, String name, int questions, AtomicLong answerNanos) throws IOException {
+        try (GameClient client = new GameClient(host, port)) {
+            client.send("JOIN " + room + " " + name);
+            expect(client.readLine(), "JOINED");
+            client.send("START " + GameSession.MAKE_A_WISH + " " + questions);
+            int answered = 0;
+            String line = client.readLine();
+            while (line != null && line.startsWith("Q ")) {
+                long start = System.nanoTime();
+                client.send("A " + solve(line.substring(2)));
+                expect(client.readLine(), "RIGHT");
+                line = client.readLine();
+                answerNanos.addAndGet(System.nanoTime() - start);
+                answered++;
+            }
+            expect(line, "END");
+            client.send("QUIT");
+            expect(client.readLine(), "BYE");
+            return answered;
+        }
+    }
+
+    private static void expect(String line, String prefix) throws IOException {
+        if (line == null || !line.startsWith(prefix)) {
+            throw new IOException("Expected " + prefix + " but got: " + line);
+        }
+    }
+
+    //spins up the bots (on virtual threads when available) and reports throughput
+    private static void loadTest(int players, int rooms, int questions, String host, int port) throws InterruptedException {
+        ExecutorService bots = GameServer.newPerTaskExecutor();
+        CountDownLatch done = new CountDownLatch(players);
+        AtomicInteger failures = new AtomicInteger();
+        AtomicLong answers = new AtomicLong();
+        AtomicLong answerNanos = new AtomicLong();
+        List<String> errors = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < players; i++) {
+            final int bot = i;
+            bots.execute(() -> {
+                try {
+                    answers.addAndGet(playBot(host, port, "room" + (bot % rooms), "bot" + bot, questions, answerNanos));
+                }
+                catch (IOException e) {
+                    if (failures.incrementAndGet() <= 5) {
+                        synchronized (errors) {
+                            errors.add(e.getMessage());
+                        }
+                    }
+                }
+                finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        bots.shutdown();
+        bots.awaitTermination(10, TimeUnit.SECONDS);
+
+        System.out.printf("%d players in %d rooms, %d questions each%n", players, rooms, questions);
+        System.out.printf("finished: %d, failed: %d, time: %.2fs%n", players - failures.get(), failures.get(), elapsed / 1e9);
+        System.out.printf("answers: %d (%.0f/s), avg round trip: %.1f us%n", answers.get(), answers.get() * 1e9 / elapsed,
+                answers.get() == 0 ? 0.0 : answerNanos.get() / 1e3 / answers.get());
+        for (String error : errors) {
+            System.out.println("error: " + error);
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("--load")) {
+            int players = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+            int rooms = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+            int questions = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+            String host = args.length > 4 ? args[4] : "localhost";
+            int port = args.length > 5 ? Integer.parseInt(args[5]) : GameServer.DEFAULT_PORT;
+            GameServer server = null;
+            if (args.length <= 4) {
+                //no host given: run the server in this jvm on a free loopback port
+                server = new GameServer(0);
+                server.start();
+                port = server.getPort();
+            }
+            loadTest(players, rooms, questions, host, port);
+            if (server != null) {
+                server.stop();
+            }
+            return;
+        }
+
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : GameServer.DEFAULT_PORT;
+        try (GameClient client = new GameClient(host, port)) {
+            //print server replies as they arrive while the user types commands
+            Thread reader = new Thread(() -> {
+                try {
+                    String line;
+                    while ((line = client.readLine()) != null) {
+                        System.out.println(line);
+                    }
+                }
+                catch (IOException e) {
+                    //connection closed
+                }
+            });
+            reader.setDaemon(true);
+            reader.start();
+
+            BufferedReader console = new BufferedReader(new InputStreamReader(System.in));
+            String command;
+            while ((command = console.readLine()) != null) {
+                client.send(command);
+                if (command.trim().equals("QUIT")) {
+                    break;
+                }
+            }
+            reader.join(1000);
+        }
+    }
+}
@@ -0,0 +1,360 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+//side effects of the game (persistence, analytics, broadcasting) as events handled off the game thread
+//the game thread is the single publisher; every subscriber has its own preallocated ring of event slots
+//and its own consumer thread, so a slow subscriber only ever holds up or loses its own events
+//publishing copies a few primitives into a slot and bumps a sequence number, no allocation and no locks;
+//with the DROP policy a full ring counts the event as dropped and returns at once (wait-free), with
+//BLOCK the publisher waits for the subscriber to make room (for events that must not be lost)
+public class GameEventBus implements AutoCloseable {
+    //event types
+    public static final int QUESTION_ISSUED = 0;
+    public static final int ANSWER_SUBMITTED = 1;
+    public static final int TURN_ENDED = 2;
+    public static final int SESSION_ENDED = 3;
+    public static final int ALL_EVENTS = (1 << QUESTION_ISSUED) | (1 << ANSWER_SUBMITTED) | (1 << TURN_ENDED) | (1 << SESSION_ENDED);
+
+    //what a full ring does to the publisher
+    public static final int DROP = 0;
+    public static final int BLOCK = 1;
+
+    //one event; slots are reused, so subscribers must copy anything they keep after onEvent returns
+    public static class Event {
+        public int type;
+        public long nanos; //monotonic instant of the event
+        public long timestamp; //wall clock millis (turn and session ends, for persistence)
+        public GameSession session; //the publishing session (tells split screen players' sessions apart)
+        public int gameMode;
+        public int playerIndex;
+        public Player player;
+        public int opChoice; //QUESTION_ISSUED and ANSWER_SUBMITTED
+        public int factId; //-1 for expressions
+        public long userAnswer; //ANSWER_SUBMITTED
+        public long actualAnswer;
+        public boolean correct;
+        public long latencyNanos; //ANSWER_SUBMITTED: time since the question was shown
+        public int score; //score after the event
+
+        void copyFrom(Event other) {
+            type = other.type;
+            nanos = other.nanos;
+            timestamp = other.timestamp;
+            session = other.session;
+            gameMode = other.gameMode;
+            playerIndex = other.playerIndex;
+            player = other.player;
+            opChoice = other.opChoice;
+            factId = other.factId;
+            userAnswer = other.userAnswer;
+            actualAnswer = other.actualAnswer;
+            correct = other.correct;
+            latencyNanos = other.latencyNanos;
+            score = other.score;
+        }
+    }
+
+    //called on the subscriber's own thread; endOfBatch marks the last event currently available,
+    //so expensive work (flushing, repainting, sending) can be done once per batch
+    public interface Handler {
+        void onEvent(Event event, boolean endOfBatch) throws Exception;
+    }
+
+    //one subscriber: its ring, its thread and its counters
+    private static class IdleCallback {
+        final long target; //runs once this many events have been handled
+        final Runnable callback;
+
+        IdleCallback(long target, Runnable callback) {
+            this.target = target;
+            this.callback = callback;
+        }
+    }
+
+    public static class Subscription implements Runnable {
+        private final Event[] slots;
+        private final int mask;
+        private final int eventMask;
+        private final int policy;
+        private final Handler handler;
+        private final Thread thread;
+
+        private final AtomicLong published = new AtomicLong(); //next slot to fill (publisher)
+        private final AtomicLong consumed = new AtomicLong(); //next slot to handle (subscriber)
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong(); //handler exceptions (the event is skipped)
+        private volatile boolean consumerWaiting = false;
+        private volatile Thread waitingPublisher;
+        private volatile boolean running = true;
+        private long largestBatch = 0; //written by the subscriber thread only
+        private final ConcurrentLinkedQueue<IdleCallback> idleCallbacks = new ConcurrentLinkedQueue<>();
+
+        Subscription(String name, int capacity, int eventMask, int policy, Handler handler) {
+            int size = Integer.highestOneBit(capacity);
+            if (size < capacity) {
+                size <<= 1;
+            }
+            slots = new Event[size];
+            for (int i = 0; i < size; i++) {
+                slots[i] = new Event(); //all slots up front, publishing never allocates
+            }
+            this.mask = size - 1;
+            this.eventMask = eventMask;
+            this.policy = policy;
+            this.handler = handler;
+
+            thread = new Thread(this, "event-" + name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        //publisher side: copy into the next slot, or drop/wait if the subscriber is a whole ring behind
+        void offer(Event event) {
+            if ((eventMask & (1 << event.type)) == 0) {
+                return;
+            }
+            if (!running) {
+                dropped.incrementAndGet(); //the subscriber may already have drained and exited
+                return;
+            }
+            long p = published.get();
+            while (p - consumed.get() >= slots.length) {
+                if (policy == DROP || !running) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                waitingPublisher = Thread.currentThread();
+                if (p - consumed.get() >= slots.length && running) {
+                    LockSupport.parkNanos(this, 100_000);
+                }
+                waitingPublisher = null;
+            }
+            slots[(int) p & mask].copyFrom(event);
+            published.lazySet(p + 1); //hands the slot to the subscriber
+
+            //only pay for an unpark when the subscriber is actually asleep
+            if (consumerWaiting) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        //subscriber loop: handle everything available as one batch, then sleep until more arrives
+        @Override
+        public void run() {
+            while (true) {
+                long c = consumed.get();
+                long available = published.get();
+                if (c == available) {
+                    runIdleCallbacks();
+                    if (!running) {
+                        return; //closed and fully drained
+                    }
+                    consumerWaiting = true;
+                    //re-check after publishing the flag so an event offered in between isn't missed
+                    if (published.get() == c && running) {
+                        LockSupport.parkNanos(this, 10_000_000);
+                    }
+                    consumerWaiting = false;
+                    continue;
+                }
+
+                largestBatch = Math.max(largestBatch, available - c);
+                for (long s = c; s < available; s++) {
+                    try {
+                        handler.onEvent(slots[(int) s & mask], s == available - 1);
+                    }
+                    catch (Exception e) {
+                        failures.incrementAndGet(); //a broken subscriber mustn't stop the others or the game
+                    }
+                    consumed.lazySet(s + 1); //frees the slot for the publisher
+                }
+                runIdleCallbacks();
+
+                Thread publisher = waitingPublisher;
+                if (publisher != null) {
+                    LockSupport.unpark(publisher);
+                }
+            }
+        }
+
+        //waits until every event offered so far has been handled; false on timeout
+        public boolean awaitIdle(long timeoutMillis) {
+            long target = published.get();
+            long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+            while (consumed.get() < target) {
+                if (System.nanoTime() - deadline >= 0 || !thread.isAlive()) {
+                    return consumed.get() >= target;
+                }
+                LockSupport.unpark(thread);
+                LockSupport.parkNanos(100_000);
+            }
+            return true;
+        }
+
+        //runs the callback on the subscriber thread once every event offered so far has been handled,
+        //without making the caller wait (right away on the caller's thread if the subscriber has stopped)
+        public void whenIdle(Runnable callback) {
+            idleCallbacks.add(new IdleCallback(published.get(), callback));
+            if (!thread.isAlive()) {
+                runIdleCallbacks();
+            }
+            else {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private void runIdleCallbacks() {
+            IdleCallback next;
+            while ((next = idleCallbacks.peek()) != null && (next.target <= consumed.get() || !thread.isAlive())) {
+                if (idleCallbacks.remove(next)) {
+                    try {
+                        next.callback.run();
+                    }
+                    catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            }
+        }
+
+        //events lost because the ring was full (DROP policy) or the bus was closed
+        public long getDropped() {
+            return dropped.get();
+        }
+
+        public long getFailures() {
+            return failures.get();
+        }
+
+        public long getHandled() {
+            return consumed.get();
+        }
+
+        public int getBacklog() {
+            return (int) (published.get() - consumed.get());
+        }
+
+        public long getLargestBatch() {
+            return largestBatch;
+        }
+
+        public int capacity() {
+            return slots.length;
+        }
+
+        //stops taking new events; the thread finishes what is already in the ring and exits
+        void close() {
+            running = false;
+            LockSupport.unpark(thread);
+        }
+
+        void join(long timeoutMillis) throws InterruptedException {
+            thread.join(timeoutMillis);
+        }
+    }
+
+    //subscriptions are only added before the game starts; the array is replaced, never modified
+    private volatile Subscription[] subscriptions = new Subscription[0];
+    private final Event scratch = new Event(); //filled by the publisher, copied into each ring
+
+    //adds a subscriber with its own thread; eventMask is a bit per event type (1 << TURN_ENDED etc.)
+    public synchronized Subscription subscribe(String name, int capacity, int eventMask, int policy, Handler handler) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        if (policy != DROP && policy != BLOCK) {
+            throw new IllegalArgumentException("Unknown policy: " + policy);
+        }
+        Subscription subscription = new Subscription(name, capacity, eventMask, policy, handler);
+        List<Subscription> list = new ArrayList<>(List.of(subscriptions));
+        list.add(subscription);
+        subscriptions = list.toArray(new Subscription[0]);
+        return subscription;
+    }
+
+    //publishing methods, all called from the game thread only
+
+    public void questionIssued(GameSession session, long nanos, int playerIndex, Player player, Question question, int score) {
+        Event e = begin(QUESTION_ISSUED, session, nanos, playerIndex, player, score);
+        e.opChoice = question.opChoice;
+        e.factId = question.factId;
+        e.actualAnswer = question.answer;
+        publish(e);
+    }
+
+    public void answerSubmitted(GameSession session, long nanos, int playerIndex, Player player, int opChoice, int factId,
+                                long userAnswer, long actualAnswer, boolean correct, long latencyNanos, int score) {
+        Event e = begin(ANSWER_SUBMITTED, session, nanos, playerIndex, player, score);
+        e.opChoice = opChoice;
+        e.factId = factId;
+        e.userAnswer = userAnswer;
+        e.actualAnswer = actualAnswer;
+        e.correct = correct;
+        e.latencyNanos = latencyNanos;
+        publish(e);
+    }
+
+    public void turnEnded(GameSession session, long nanos, int playerIndex, Player player, int score) {
+        publish(begin(TURN_ENDED, session, nanos, playerIndex, player, score));
+    }
+
+    public void sessionEnded(GameSession session, long nanos) {
+        publish(begin(SESSION_ENDED, session, nanos, -1, null, 0));
+    }
+
+    private Event begin(int type, GameSession session, long nanos, int playerIndex, Player player, int score) {
+        Event e = scratch;
+        e.type = type;
+        e.nanos = nanos;
+        e.timestamp = type >= TURN_ENDED ? System.currentTimeMillis() : 0;
+        e.session = session;
+        e.gameMode = session.getGameMode();
+        e.playerIndex = playerIndex;
+        e.player = player;
+        e.opChoice = 0;
+        e.factId = -1;
+        e.userAnswer = 0;
+        e.actualAnswer = 0;
+        e.correct = false;
+        e.latencyNanos = 0;
+        e.score = score;
+        return e;
+    }
+
+    private void publish(Event event) {
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+        event.player = null; //don't keep the player or session reachable from the scratch slot
+        event.session = null;
+    }
+
+    //waits for every subscriber to handle everything published so far
+    public boolean awaitIdle(long timeoutMillis) {
+        boolean idle = true;
+        for (Subscription subscription : subscriptions) {
+            idle &= subscription.awaitIdle(timeoutMillis);
+        }
+        return idle;
+    }
+
+    //stops all subscribers after they have drained their rings (waits up to a second for them)
+    @Override
+    public void close() {
+        Subscription[] all = subscriptions;
+        for (Subscription subscription : all) {
+            subscription.close();
+        }
+        try {
+            for (Subscription subscription : all) {
+                subscription.join(1000);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+//latency histograms for the whole jvm: how long players take to answer (per operation)
+//and how long the gui spends in its handlers; published over jmx under "mathgame:*"
+public class GameMetrics {
+    public static final String[] OP_NAMES = {"expr", "add", "sub", "mul", "div"}; //by op choice, 0 = expression
+
+    //gui handlers that are timed, each for its own work only (not the handlers it leads to or any dialog)
+    public static final int SUBMIT_ANSWER = 0;
+    public static final int NEXT_QUESTION = 1;
+    public static final int SHOW_SUMMARY = 2;
+    public static final String[] HANDLER_NAMES = {"handleSubmitAnswer", "generateNextQuestion", "showSummary"};
+
+    private final LatencyHistogram[] answerLatency = new LatencyHistogram[5]; //indexed by op choice 0-4
+    private final LatencyHistogram[] handlerLatency = new LatencyHistogram[HANDLER_NAMES.length];
+
+    private static class Holder {
+        static final GameMetrics INSTANCE = new GameMetrics();
+    }
+
+    public static GameMetrics global() {
+        return Holder.INSTANCE;
+    }
+
+    public GameMetrics() {
+        for (int op = 0; op <= 4; op++) {
+            answerLatency[op] = new LatencyHistogram();
+        }
+        for (int i = 0; i < handlerLatency.length; i++) {
+            handlerLatency[i] = new LatencyHistogram();
+        }
+    }
+
+    public LatencyHistogram answerLatency(int opChoice) {
+        return answerLatency[opChoice];
+    }
+
+    public LatencyHistogram handlerLatency(int handler) {
+        return handlerLatency[handler];
+    }
+
+    //registers every histogram with the platform mbean server (safe to call more than once)
+    public void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (int op = 0; op <= 4; op++) {
+                register(server, new ObjectName("mathgame:type=AnswerLatency,op=" + OP_NAMES[op]), answerLatency[op]);
+            }
+            for (int i = 0; i < handlerLatency.length; i++) {
+                register(server, new ObjectName("mathgame:type=HandlerLatency,handler=" + HANDLER_NAMES[i]), handlerLatency[i]);
+            }
+        }
+        catch (JMException e) {
+            //jmx is only for monitoring, the game runs the same without it
+        }
+    }
+
+    private static void register(MBeanServer server, ObjectName name, Object mbean) throws JMException {
+        if (!server.isRegistered(name)) {
+            server.registerMBean(mbean, name);
+        }
+    }
+
+    //one line per histogram: count, p50/p90/p99/max, in millis (answers) or micros (handlers)
+    public static void appendLine(StringBuilder sb, String label, LatencyHistogram histogram, boolean millis) {
+        double unit = millis ? 1_000_000.0 : 1_000.0;
+        String suffix = millis ? "ms" : "us";
+        sb.append(String.format("%-22s n=%-6d p50=%.1f%s p90=%.1f%s p99=%.1f%s max=%.1f%s%n", label, histogram.getCount(),
+                histogram.percentileNanos(0.50) / unit, suffix, histogram.percentileNanos(0.90) / unit, suffix,
+                histogram.percentileNanos(0.99) / unit, suffix, histogram.getMaxNanos() / unit, suffix));
+    }
+
+    public void appendHandlerText(StringBuilder sb) {
+        for (int i = 0; i < handlerLatency.length; i++) {
+            appendLine(sb, HANDLER_NAMES[i], handlerLatency[i], false);
+        }
+    }
+}
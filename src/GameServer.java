@@ -0,0 +1,395 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//network multiplayer server: many rooms, one connection per player, each connection on its own thread
+//(virtual threads on jdk 21+, a cached pool of platform threads otherwise)
+//every player plays their own GameSession; a room shares a live leaderboard between its players
+//a seat is freed when its connection closes, and a room is removed once its last player has left
+//
+//line protocol (utf-8, one command per line):
+//  JOIN <room> <name>                 -> JOINED <room> <seat>
+//  START <mode 1-4> <questions|secs> [seed] -> Q <question>
+//  A <answer>                         -> RIGHT <score> | WRONG <correct answer> <score>
+//                                        then Q <question> or END <score> <rank>
+//  TOP [k]                            -> TOP <n> then n lines: R <rank> <score> <name>
+//  QUIT                               -> BYE
+//  errors                             -> ERR <message>
+public class GameServer {
+    public static final int DEFAULT_PORT = 5050;
+    public static final int MAX_ROOM_PLAYERS = 1024;
+
+    private final int port;
+    private final ConcurrentHashMap<String, Room> rooms = new ConcurrentHashMap<>();
+    private final ExecutorService connections = newPerTaskExecutor();
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private ServerSocket serverSocket;
+    private volatile boolean running = false;
+
+    //players that joined the same room name, with a shared leaderboard
+    //the leaderboard holds score + 1 for taken seats and 0 for free ones, so free seats always rank last
+    static class Room {
+        final String name;
+        final Leaderboard leaderboard = new Leaderboard(MAX_ROOM_PLAYERS);
+        final String[] names = new String[MAX_ROOM_PLAYERS];
+        final int[] freeSeats = new int[MAX_ROOM_PLAYERS]; //stack of seats given back by players that left
+        int freeCount = 0;
+        int used = 0; //seats handed out at least once
+        int size = 0; //players in the room now
+
+        Room(String name) {
+            this.name = name;
+        }
+
+        synchronized int join(String playerName) {
+            int seat;
+            if (freeCount > 0) {
+                seat = freeSeats[--freeCount];
+            }
+            else if (used < MAX_ROOM_PLAYERS) {
+                seat = used++;
+            }
+            else {
+                return -1;
+            }
+            names[seat] = playerName;
+            leaderboard.update(seat, 1);
+            size++;
+            return seat;
+        }
+
+        synchronized void leave(int seat) {
+            names[seat] = null;
+            leaderboard.update(seat, 0);
+            freeSeats[freeCount++] = seat;
+            size--;
+        }
+
+        synchronized boolean isEmpty() {
+            return size == 0;
+        }
+
+        synchronized void updateScore(int seat, int score) {
+            leaderboard.update(seat, score + 1);
+        }
+
+        synchronized int rank(int seat) {
+            return leaderboard.rank(seat);
+        }
+
+        //the rows are copied under the lock and written after it, so a client that stops reading
+        //only blocks its own connection, not everyone else in the room
+        void writeTop(int k, Writer out) throws IOException {
+            int[] scores;
+            String[] topNames;
+            synchronized (this) {
+                int[] top = new int[Math.max(0, Math.min(k, size))];
+                int count = leaderboard.topK(top.length, top);
+                scores = new int[count];
+                topNames = new String[count];
+                for (int i = 0; i < count; i++) {
+                    scores[i] = leaderboard.getScore(top[i]) - 1;
+                    topNames[i] = names[top[i]];
+                }
+            }
+            out.write("TOP " + scores.length + "\n");
+            for (int i = 0; i < scores.length; i++) {
+                out.write("R " + (i + 1) + " " + scores[i] + " " + topNames[i] + "\n");
+            }
+            out.flush();
+        }
+    }
+
+    public GameServer(int port) {
+        this.port = port;
+    }
+
+    //virtual thread per task when the jdk has them, so thousands of blocked connections are cheap
+    static ExecutorService newPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    //binds the port and accepts connections on a background thread
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port, 1024);
+        running = true;
+        Thread acceptor = new Thread(this::acceptLoop, "game-server-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true); //one small line per answer, don't wait to batch
+                connections.execute(() -> serve(socket));
+            }
+            catch (IOException e) {
+                if (running) {
+                    System.err.println("accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    public void stop() throws IOException {
+        running = false;
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    public int getPort() {
+        return serverSocket == null ? port : serverSocket.getLocalPort();
+    }
+
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    //one player's connection: reads commands until QUIT or disconnect
+    private void serve(Socket socket) {
+        activeConnections.incrementAndGet();
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            PlayerConnection connection = new PlayerConnection(in, out);
+            try {
+                connection.run();
+            }
+            finally {
+                connection.leave();
+            }
+        }
+        catch (IOException e) {
+            //client went away, nothing to clean up beyond the socket
+        }
+        finally {
+            activeConnections.decrementAndGet();
+        }
+    }
+
+    //per connection state: the player's room seat and their current game session
+    private class PlayerConnection {
+        private final BufferedReader in;
+        private final Writer out;
+        private final AnswerParser answerParser = new AnswerParser();
+        private Room room;
+        private int seat = -1;
+        private Player player;
+        private GameSession session;
+
+        PlayerConnection(BufferedReader in, Writer out) {
+            this.in = in;
+            this.out = out;
+        }
+
+        void run() throws IOException {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!handle(line.trim())) {
+                    break;
+                }
+                out.flush();
+            }
+            out.flush();
+        }
+
+        //returns false when the client quits
+        private boolean handle(String line) throws IOException {
+            int space = line.indexOf(' ');
+            String command = space < 0 ? line : line.substring(0, space);
+            String args = space < 0 ? "" : line.substring(space + 1).trim();
+
+            if (command.equals("A")) {
+                answer(args);
+            }
+            else if (command.equals("JOIN")) {
+                join(args);
+            }
+            else if (command.equals("START")) {
+                start(args);
+            }
+            else if (command.equals("TOP")) {
+                top(args);
+            }
+            else if (command.equals("QUIT")) {
+                out.write("BYE\n");
+                return false;
+            }
+            else {
+                out.write("ERR unknown command\n");
+            }
+            return true;
+        }
+
+        private void join(String args) throws IOException {
+            int space = args.indexOf(' ');
+            if (room != null) {
+                out.write("ERR already joined " + room.name + "\n");
+                return;
+            }
+            if (space < 1) {
+                out.write("ERR usage: JOIN <room> <name>\n");
+                return;
+            }
+            String name = args.substring(space + 1).trim();
+            int[] joinedSeat = {-1};
+            //atomic with leave() removing the room, so nobody joins a room that is being dropped
+            Room joined = rooms.compute(args.substring(0, space), (roomName, existing) -> {
+                Room r = existing != null ? existing : new Room(roomName);
+                joinedSeat[0] = r.join(name);
+                return r;
+            });
+            if (joinedSeat[0] < 0) {
+                out.write("ERR room is full\n");
+                return;
+            }
+            room = joined;
+            seat = joinedSeat[0];
+            player = new Player(name);
+            out.write("JOINED " + room.name + " " + seat + "\n");
+        }
+
+        //gives the seat back when the connection ends; the last player out removes the room
+        void leave() {
+            if (room == null) {
+                return;
+            }
+            rooms.computeIfPresent(room.name, (roomName, r) -> {
+                if (r != room) {
+                    return r;
+                }
+                r.leave(seat);
+                return r.isEmpty() ? null : r;
+            });
+            session = null;
+            room = null;
+            seat = -1;
+        }
+
+        private void start(String args) throws IOException {
+            if (room == null) {
+                out.write("ERR join a room first\n");
+                return;
+            }
+            String[] parts = args.split(" ");
+            try {
+                int mode = Integer.parseInt(parts[0]);
+                int amount = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+                long seed = parts.length > 2 ? Long.parseLong(parts[2]) : RandomQuestionSource.newSeed();
+                int numQuestions = mode == GameSession.MAKE_A_WISH ? amount : 0;
+                int timeLimit = mode == GameSession.TIME_TRIAL ? amount : 0;
+                player = new Player(player.name); //each START is a fresh game for the room
+                session = new GameSession(mode, numQuestions, timeLimit, new Player[] {player}, seed);
+                session.enableMetrics(GameMetrics.global());
+            }
+            catch (IllegalArgumentException e) { //includes NumberFormatException
+                out.write("ERR usage: START <mode 1-4> <questions|seconds> [seed]\n");
+                return;
+            }
+            room.updateScore(seat, 0);
+            session.startTurn();
+            nextQuestion();
+        }
+
+        private void answer(String args) throws IOException {
+            if (session == null || session.isTurnOver()) {
+                out.write("ERR no game in progress\n");
+                return;
+            }
+            int status = answerParser.parse(args);
+            if (status != AnswerParser.OK) {
+                out.write("ERR " + AnswerParser.describe(status) + "\n");
+                return;
+            }
+            if (session.checkTime(System.nanoTime())) {
+                finish(); //time trial answers after the deadline don't count
+                return;
+            }
+
+            boolean correct = session.submitAnswer(answerParser.getValue());
+            if (correct) {
+                room.updateScore(seat, session.getScore());
+                out.write("RIGHT " + session.getScore() + "\n");
+            }
+            else {
+                out.write("WRONG " + session.getCurrentGame().getActualAnswer() + " " + session.getScore() + "\n");
+            }
+            if (session.isTurnOver()) {
+                finish();
+            }
+            else {
+                nextQuestion();
+            }
+        }
+
+        private void nextQuestion() throws IOException {
+            String question = session.nextQuestion();
+            if (question == null) {
+                finish();
+                return;
+            }
+            out.write("Q " + question + "\n");
+        }
+
+        private void finish() throws IOException {
+            session.endTurn();
+            out.write("END " + player.score + " " + room.rank(seat) + "\n");
+        }
+
+        private void top(String args) throws IOException {
+            if (room == null) {
+                out.write("ERR join a room first\n");
+                return;
+            }
+            int k = 10;
+            try {
+                if (!args.isEmpty()) {
+                    k = Integer.parseInt(args);
+                }
+            }
+            catch (NumberFormatException e) {
+                out.write("ERR usage: TOP [k]\n");
+                return;
+            }
+            room.writeTop(Math.max(0, k), out);
+        }
+    }
+
+    //java GameServer [port]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GameServer server = new GameServer(port);
+        GameMetrics.global().registerMBeans();
+        server.start();
+        System.out.println("Math game server listening on port " + server.getPort());
+        while (true) {
+            Thread.sleep(60_000);
+            System.out.println(server.getActiveConnections() + " players connected in " + server.getRoomCount() + " rooms");
+        }
+    }
+}
@@ -0,0 +1,402 @@
+//headless game session: runs the mode rules and turn rotation without any swing state
+//so the same rules can be driven by the gui, a server, a bot or a benchmark
+public class GameSession {
+    //game modes (same numbering as the setup dropdown + 1)
+    public static final int MAKE_A_WISH = 1;
+    public static final int NO_MISTAKES = 2;
+    public static final int TAKE_CHANCES = 3;
+    public static final int TIME_TRIAL = 4;
+
+    public static final int STARTING_LIVES = 3;
+
+    private final int gameMode;
+    private final int numQuestions; //only used by make a wish
+    private final int timeLimit; //seconds, only used by time trial
+    private final Player[] players;
+    private final RandomQuestionSource source; //per-session random draws, seeded for reproducibility
+    private final Leaderboard leaderboard; //live ranking, updated on every score change
+    private QuestionBuffer prefetch; //optional, questions made ahead of time by a producer thread
+    private NoRepeatSampler noRepeat; //optional, no fact is asked twice until its op runs out
+    private ExpressionGenerator expressions; //optional, multi-step questions instead of single facts
+    private GameMetrics metrics; //optional, answer latency for the whole jvm
+    private LatencyHistogram[][] playerLatency; //[player][op], created when metrics are enabled
+    private GameEventBus events; //optional, side effects handled by subscribers on their own threads
+    private SessionRecorder recorder; //optional, binary log of the session for exact replays
+    private long questionShownNanos; //when the current question was handed out
+    private boolean spacedRepetition = false; //re-ask each player's missed facts when they fall due
+    private boolean lastWasReview = false; //reviews are interleaved with new questions, never back to back
+
+    private Game currentGame;
+    private int currentPlayerIndex = 0;
+    private int currentQuestionCount = 0;
+    private int startingLives = STARTING_LIVES; //take chances lives per turn
+    private int livesRemaining = STARTING_LIVES;
+    private long turnStartNanos; //monotonic start of the current turn (time trial deadline is relative to it)
+    private boolean turnOver = true;
+
+    public GameSession(int gameMode, int numQuestions, int timeLimit, Player[] players) {
+        this(gameMode, numQuestions, timeLimit, players, RandomQuestionSource.newSeed());
+    }
+
+    //same seed and same answers give the same questions
+    public GameSession(int gameMode, int numQuestions, int timeLimit, Player[] players, long seed) {
+        if (gameMode < MAKE_A_WISH || gameMode > TIME_TRIAL) {
+            throw new IllegalArgumentException("Unknown game mode: " + gameMode);
+        }
+        if (players == null || players.length < 1) {
+            throw new IllegalArgumentException("Must have at least 1 player!");
+        }
+        this.gameMode = gameMode;
+        this.numQuestions = numQuestions;
+        this.timeLimit = timeLimit;
+        this.players = players;
+        this.source = new RandomQuestionSource(seed);
+        this.leaderboard = new Leaderboard(players.length);
+        for (int i = 0; i < players.length; i++) {
+            leaderboard.update(i, players[i].score);
+        }
+    }
+
+    //starts the turn of the current player, carrying over their score and answer log
+    public void startTurn() {
+        startTurn(System.nanoTime());
+    }
+
+    //same, with an explicit monotonic start instant (for simulations and replays)
+    public void startTurn(long nowNanos) {
+        if (isFinished()) {
+            throw new IllegalStateException("All players have finished");
+        }
+        Player currentPlayer = players[currentPlayerIndex];
+        currentGame = new Game(source);
+        currentGame.setScore(currentPlayer.score);
+        currentGame.setLog(currentPlayer.log); //keep appending to the same log across turns
+
+        currentQuestionCount = 0;
+        livesRemaining = startingLives;
+        lastWasReview = false;
+        turnStartNanos = nowNanos;
+        turnOver = false;
+        if (recorder != null) {
+            recorder.turnStarted(nowNanos);
+        }
+    }
+
+    //returns the next question, or null when the turn is over (e.g. make a wish count reached)
+    public String nextQuestion() {
+        return nextQuestion(System.nanoTime());
+    }
+
+    //same, shown at an explicit instant (answer latency is measured from it)
+    public String nextQuestion(long nowNanos) {
+        if (gameMode == MAKE_A_WISH && currentQuestionCount >= numQuestions) {
+            turnOver = true;
+        }
+        if (turnOver) {
+            return null;
+        }
+
+        Question question;
+        MistakeModel mistakes = spacedRepetition ? players[currentPlayerIndex].mistakes : null;
+        int dueFact = -1;
+        if (mistakes != null) {
+            mistakes.questionAsked();
+            dueFact = lastWasReview ? -1 : mistakes.dueFact();
+            lastWasReview = dueFact >= 0;
+        }
+        if (dueFact >= 0) {
+            question = FactTable.get().byId(dueFact); //a missed fact is due, practise it instead
+        }
+        else if (expressions != null) {
+            question = expressions.nextQuestion(source); //cheap enough to make inline, see benchmarks/QuestionBenchmarks
+        }
+        else if (prefetch != null) {
+            question = prefetch.take(); //already generated, just a dequeue
+        }
+        else {
+            //generate a random operation choice (1-4) and the question inline
+            question = Game.createQuestion(source.nextOpChoice(), source, noRepeat);
+        }
+
+        currentQuestionCount++;
+        questionShownNanos = nowNanos;
+        String text = currentGame.ask(question);
+        if (recorder != null) {
+            recorder.question(nowNanos, question);
+        }
+        if (events != null) {
+            events.questionIssued(this, nowNanos, currentPlayerIndex, players[currentPlayerIndex], question, currentGame.getScore());
+        }
+        return text;
+    }
+
+    //tracks every player's misses and re-asks missed facts with growing gaps
+    //(players that already have a model, e.g. loaded from their profile, keep it)
+    public void enableSpacedRepetition() {
+        spacedRepetition = true;
+        for (Player player : players) {
+            if (player.mistakes == null) {
+                player.mistakes = new MistakeModel();
+            }
+        }
+    }
+
+    public boolean isSpacedRepetition() {
+        return spacedRepetition;
+    }
+
+    //records how long each answer took, per player and per operation (off by default)
+    public void enableMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+        if (playerLatency == null) {
+            playerLatency = new LatencyHistogram[players.length][5];
+        }
+    }
+
+    //answer latency of one player for one op, or null if they never answered one
+    public LatencyHistogram getAnswerLatency(int playerIndex, int opChoice) {
+        return playerLatency == null ? null : playerLatency[playerIndex][opChoice];
+    }
+
+    //publishes questions, answers and turn/session ends to the bus (call from the thread driving the session)
+    public void enableEvents(GameEventBus bus) {
+        events = bus;
+    }
+
+    //records the session for SessionReplay; call after the other options (and after loading practice
+    //profiles), since the recording starts with the settings as they are now
+    public SessionRecorder enableRecording() {
+        if (recorder == null) {
+            recorder = new SessionRecorder(source.getSeed(), gameMode, numQuestions, timeLimit, startingLives,
+                    noRepeat != null, expressions, spacedRepetition, players);
+        }
+        return recorder;
+    }
+
+    public SessionRecorder getRecorder() {
+        return recorder;
+    }
+
+    //generate questions ahead of time on a producer thread (same seed still gives the same questions)
+    //(not with expressions: they are made inline from the same random source, which the producer
+    //thread would then be drawing from at the same time)
+    public void enablePrefetch(int capacity) {
+        if (expressions != null) {
+            throw new IllegalStateException("Expressions are generated inline, don't prefetch them");
+        }
+        if (prefetch == null) {
+            prefetch = new QuestionBuffer(source, noRepeat, capacity);
+        }
+    }
+
+    //asks multi-step expressions (advanced mode) instead of single facts; missed facts can still be
+    //practised in between when spaced repetition is on
+    //(call instead of enablePrefetch, see above)
+    public void enableExpressions(ExpressionGenerator generator) {
+        if (prefetch != null) {
+            throw new IllegalStateException("Enable expressions instead of prefetching, not after");
+        }
+        expressions = generator;
+    }
+
+    //asks every fact of an op once before repeating any, for the whole session
+    //(call before enablePrefetch, the producer thread takes the sampler over)
+    public void enableNoRepeat() {
+        if (prefetch != null) {
+            throw new IllegalStateException("Enable no-repeat sampling before prefetching");
+        }
+        if (noRepeat == null) {
+            noRepeat = new NoRepeatSampler();
+        }
+    }
+
+    public QuestionBuffer getPrefetch() {
+        return prefetch;
+    }
+
+    //stops the prefetch producer, if any
+    public void close() {
+        if (prefetch != null) {
+            prefetch.close();
+        }
+    }
+
+    //checks the answer and applies the mode rules; check isTurnOver() afterwards
+    public boolean submitAnswer(long userAnswer) {
+        return submitAnswer(userAnswer, System.nanoTime());
+    }
+
+    //same, at an explicit instant; a time trial answer after the deadline ends the turn and doesn't count
+    public boolean submitAnswer(long userAnswer, long nowNanos) {
+        if (turnOver) {
+            throw new IllegalStateException("No turn in progress");
+        }
+        if (recorder != null) {
+            recorder.answer(nowNanos, userAnswer); //even a late one, a replay must end the turn the same way
+        }
+        if (checkTime(nowNanos)) {
+            return false;
+        }
+        if (metrics != null) {
+            recordLatency(nowNanos - questionShownNanos);
+        }
+        boolean correct = currentGame.checkAnswer(userAnswer);
+        if (spacedRepetition && currentGame.getCurrentFactId() >= 0) {
+            players[currentPlayerIndex].mistakes.record(currentGame.getCurrentFactId(), correct);
+        }
+        if (correct) {
+            leaderboard.update(currentPlayerIndex, currentGame.getScore());
+        }
+        if (events != null) {
+            events.answerSubmitted(this, nowNanos, currentPlayerIndex, players[currentPlayerIndex], currentGame.getCurrentOpChoice(),
+                    currentGame.getCurrentFactId(), userAnswer, currentGame.getActualAnswer(), correct, nowNanos - questionShownNanos,
+                    currentGame.getScore());
+        }
+
+        if (!correct) {
+            if (gameMode == NO_MISTAKES) {
+                turnOver = true; //end immediately on first mistake
+            }
+            else if (gameMode == TAKE_CHANCES) {
+                livesRemaining--;
+                if (livesRemaining <= 0) {
+                    turnOver = true; //end if no lives remain
+                }
+            }
+            //make a wish and time trial continue on incorrect answer
+        }
+        return correct;
+    }
+
+    private void recordLatency(long nanos) {
+        int op = currentGame.getCurrentOpChoice();
+        LatencyHistogram histogram = playerLatency[currentPlayerIndex][op];
+        if (histogram == null) {
+            histogram = new LatencyHistogram(); //only ops the player actually saw get a histogram
+            playerLatency[currentPlayerIndex][op] = histogram;
+        }
+        histogram.record(nanos);
+        metrics.answerLatency(op).record(nanos);
+    }
+
+    //whole seconds left in a time trial turn at the given instant (rounded up, so a fresh 60s turn shows 60)
+    public int secondsLeft(long nowNanos) {
+        long left = getDeadlineNanos() - nowNanos;
+        return left <= 0 ? 0 : (int) ((left + 999_999_999L) / 1_000_000_000L);
+    }
+
+    //monotonic instant the time trial turn ends
+    public long getDeadlineNanos() {
+        return turnStartNanos + timeLimit * 1_000_000_000L;
+    }
+
+    public long getTurnStartNanos() {
+        return turnStartNanos;
+    }
+
+    //ends a time trial turn once its deadline has passed; returns true if the turn is over
+    public boolean checkTime(long nowNanos) {
+        if (gameMode == TIME_TRIAL && !turnOver && nowNanos - getDeadlineNanos() >= 0) {
+            turnOver = true;
+        }
+        return turnOver;
+    }
+
+    //saves the current turn's results to the player and moves on to the next player
+    public void endTurn() {
+        endTurn(System.nanoTime());
+    }
+
+    //same, at an explicit instant
+    public void endTurn(long nowNanos) {
+        turnOver = true;
+        players[currentPlayerIndex].score = currentGame.getScore();
+        players[currentPlayerIndex].log = currentGame.getLog();
+        boolean lastTurn = currentPlayerIndex + 1 >= players.length;
+        if (recorder != null) {
+            recorder.turnEnded(nowNanos, currentGame.getScore());
+            if (lastTurn) {
+                recorder.finish(nowNanos);
+            }
+        }
+        if (events != null) {
+            events.turnEnded(this, nowNanos, currentPlayerIndex, players[currentPlayerIndex], currentGame.getScore());
+            if (lastTurn) {
+                events.sessionEnded(this, nowNanos);
+            }
+        }
+        currentPlayerIndex++;
+    }
+
+    public boolean isTurnOver() {
+        return turnOver;
+    }
+
+    public boolean isFinished() {
+        return currentPlayerIndex >= players.length;
+    }
+
+    //players in leaderboard order (ties keep their seat order), read from the live ranking without sorting
+    public Player[] getResults() {
+        int[] order = new int[players.length];
+        leaderboard.topK(players.length, order);
+        Player[] results = new Player[players.length];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = players[order[i]];
+        }
+        return results;
+    }
+
+    //1-based place of the player (by seat index) right now
+    public int getRank(int playerIndex) {
+        return leaderboard.rank(playerIndex);
+    }
+
+    public int getCurrentPlayerIndex() {
+        return currentPlayerIndex;
+    }
+
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    public Player getCurrentPlayer() {
+        return players[currentPlayerIndex];
+    }
+
+    public Game getCurrentGame() {
+        return currentGame;
+    }
+
+    public long getSeed() {
+        return source.getSeed();
+    }
+
+    public int getGameMode() {
+        return gameMode;
+    }
+
+    public int getTimeLimit() {
+        return timeLimit;
+    }
+
+    //lives per turn in take chances (3 unless tuned), takes effect from the next turn
+    public void setStartingLives(int lives) {
+        if (lives < 1) {
+            throw new IllegalArgumentException("Must have at least 1 life");
+        }
+        startingLives = lives;
+    }
+
+    public int getLivesRemaining() {
+        return livesRemaining;
+    }
+
+    public int getScore() {
+        return currentGame.getScore();
+    }
+
+    public int getNumPlayers() {
+        return players.length;
+    }
+}
@@ -0,0 +1,16 @@
+//jmx view of a LatencyHistogram (times in microseconds)
+public interface LatencyHistogramMBean {
+    long getCount();
+
+    double getMeanMicros();
+
+    long getP50Micros();
+
+    long getP90Micros();
+
+    long getP99Micros();
+
+    long getMaxMicros();
+
+    void reset();
+}
@@ -0,0 +1,197 @@
+//live leaderboard: players ordered by score (highest first), ties broken by player id (seat order)
+//kept as an order-statistic treap stored in primitive arrays indexed by player id, so a score
+//change, a rank query and "who is in place k" are all O(log n) with no allocation
+public class Leaderboard {
+    private final int[] score;
+    private final int[] left;
+    private final int[] right;
+    private final int[] size;
+    private final int[] priority;
+    private int root = 0; //node ids are player id + 1, 0 means no node
+    private int splitLess; //results of split (kept in fields so splitting doesn't allocate)
+    private int splitMore;
+    private int collected; //progress of the topK walk
+
+    public Leaderboard(int numPlayers) {
+        int nodes = numPlayers + 1;
+        score = new int[nodes];
+        left = new int[nodes];
+        right = new int[nodes];
+        size = new int[nodes];
+        priority = new int[nodes];
+        for (int node = 1; node < nodes; node++) {
+            priority[node] = mix(node);
+            size[node] = 1;
+            root = insert(root, node);
+        }
+    }
+
+    //fixed pseudo-random heap priority per node (keeps the tree balanced on average)
+    private static int mix(int x) {
+        x = (x ^ (x >>> 16)) * 0x45d9f3b;
+        x = (x ^ (x >>> 16)) * 0x45d9f3b;
+        return x ^ (x >>> 16);
+    }
+
+    //true if node a ranks above node b
+    private boolean before(int a, int b) {
+        return score[a] > score[b] || (score[a] == score[b] && a < b);
+    }
+
+    private void pull(int node) {
+        size[node] = size[left[node]] + size[right[node]] + 1;
+    }
+
+    private int insert(int tree, int node) {
+        if (tree == 0) {
+            left[node] = 0;
+            right[node] = 0;
+            size[node] = 1;
+            return node;
+        }
+        if (priority[node] > priority[tree]) {
+            //node becomes the root of this subtree: split the subtree around it
+            split(tree, node);
+            left[node] = splitLess;
+            right[node] = splitMore;
+            pull(node);
+            return node;
+        }
+        if (before(node, tree)) {
+            left[tree] = insert(left[tree], node);
+        }
+        else {
+            right[tree] = insert(right[tree], node);
+        }
+        pull(tree);
+        return tree;
+    }
+
+    //splits tree into the nodes ranked before node (splitLess) and after it (splitMore)
+    private void split(int tree, int node) {
+        if (tree == 0) {
+            splitLess = 0;
+            splitMore = 0;
+            return;
+        }
+        if (before(tree, node)) {
+            split(right[tree], node);
+            right[tree] = splitLess;
+            pull(tree);
+            splitLess = tree;
+        }
+        else {
+            split(left[tree], node);
+            left[tree] = splitMore;
+            pull(tree);
+            splitMore = tree;
+        }
+    }
+
+    private int merge(int a, int b) {
+        if (a == 0) return b;
+        if (b == 0) return a;
+        if (priority[a] > priority[b]) {
+            right[a] = merge(right[a], b);
+            pull(a);
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        pull(b);
+        return b;
+    }
+
+    private int remove(int tree, int node) {
+        if (tree == node) {
+            return merge(left[node], right[node]);
+        }
+        if (before(node, tree)) {
+            left[tree] = remove(left[tree], node);
+        }
+        else {
+            right[tree] = remove(right[tree], node);
+        }
+        pull(tree);
+        return tree;
+    }
+
+    //sets a player's score and moves them to their new place, O(log n)
+    public void update(int playerId, int newScore) {
+        int node = playerId + 1;
+        if (score[node] == newScore) {
+            return;
+        }
+        root = remove(root, node);
+        score[node] = newScore;
+        root = insert(root, node);
+    }
+
+    public int getScore(int playerId) {
+        return score[playerId + 1];
+    }
+
+    //1-based place of the player, O(log n)
+    public int rank(int playerId) {
+        int node = playerId + 1;
+        int rank = 0;
+        int tree = root;
+        while (tree != 0) {
+            if (tree == node) {
+                return rank + size[left[tree]] + 1;
+            }
+            if (before(node, tree)) {
+                tree = left[tree];
+            }
+            else {
+                rank += size[left[tree]] + 1;
+                tree = right[tree];
+            }
+        }
+        throw new IllegalArgumentException("Unknown player: " + playerId);
+    }
+
+    //player id in the given 1-based place, O(log n)
+    public int playerAt(int rank) {
+        if (rank < 1 || rank > size()) {
+            throw new IndexOutOfBoundsException("Rank " + rank + " of " + size());
+        }
+        int tree = root;
+        while (true) {
+            int leftSize = size[left[tree]];
+            if (rank <= leftSize) {
+                tree = left[tree];
+            }
+            else if (rank == leftSize + 1) {
+                return tree - 1;
+            }
+            else {
+                rank -= leftSize + 1;
+                tree = right[tree];
+            }
+        }
+    }
+
+    //fills out with the ids of the top players (in order) and returns how many were written
+    public int topK(int k, int[] out) {
+        int count = Math.min(Math.min(k, out.length), size());
+        collected = 0;
+        collect(root, count, out);
+        return count;
+    }
+
+    //in-order walk that stops once enough players are collected, O(log n + k)
+    private void collect(int tree, int count, int[] out) {
+        if (tree == 0 || collected >= count) {
+            return;
+        }
+        collect(left[tree], count, out);
+        if (collected < count) {
+            out[collected++] = tree - 1;
+        }
+        collect(right[tree], count, out);
+    }
+
+    public int size() {
+        return size[root];
+    }
+}
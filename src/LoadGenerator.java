@@ -0,0 +1,237 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+//capacity planning: N bot players spread over M concurrent multiplayer sessions, in real time
+//each session runs on its own thread (virtual threads on jdk 21+), its bots take their turns in order,
+//sleep their think time for real and answer through GameSession/Game.checkAnswer like a real player
+//
+//  java LoadGenerator [key=value ...]
+//    bots=1000          total bot players
+//    sessions=100       concurrent sessions (bots are dealt round-robin)
+//    mode=1             game mode 1-4
+//    questions=20       make a wish question count
+//    time=60            time trial limit in seconds
+//    accuracy=0.85      bot chance of a correct answer
+//    speed=average      fast, average or slow mean think time
+//    think=exponential  exponential, lognormal or fixed think times
+//    weak=div:0.5       per op weakness, e.g. weak=mul:0.3,div:0.6
+//    scale=0.01         think time multiplier (0.01 plays 100x faster than people would)
+//    seed=N             base seed
+public class LoadGenerator {
+    private final int numBots;
+    private final int numSessions;
+    private final int gameMode;
+    private final int numQuestions;
+    private final int timeLimit;
+    private final double accuracy;
+    private final long thinkMillis;
+    private final int thinkDistribution;
+    private final double[] weakness = new double[5]; //per op choice 0-4
+    private final double scale;
+    private final long seed;
+
+    //results, shared by all session threads
+    private final LatencyHistogram answerLatency = new LatencyHistogram(); //submitAnswer + nextQuestion
+    private final LatencyHistogram wakeLag = new LatencyHistogram(); //how late the think sleep woke up
+    private final AtomicLong answers = new AtomicLong();
+    private final AtomicInteger failures = new AtomicInteger();
+    private GameSession[] sessions;
+
+    public LoadGenerator(int numBots, int numSessions, int gameMode, int numQuestions, int timeLimit, double accuracy,
+                         long thinkMillis, int thinkDistribution, double scale, long seed) {
+        if (numSessions < 1 || numBots < numSessions) {
+            throw new IllegalArgumentException("Need at least one bot per session");
+        }
+        this.numBots = numBots;
+        this.numSessions = numSessions;
+        this.gameMode = gameMode;
+        this.numQuestions = numQuestions;
+        this.timeLimit = timeLimit;
+        this.accuracy = accuracy;
+        this.thinkMillis = thinkMillis;
+        this.thinkDistribution = thinkDistribution;
+        this.scale = scale;
+        this.seed = seed;
+    }
+
+    public void setWeakness(int opChoice, double amount) {
+        if (!(amount >= 0 && amount <= 1)) {
+            throw new IllegalArgumentException("Weakness must be between 0 and 1");
+        }
+        weakness[opChoice] = amount;
+    }
+
+    //creates the sessions and their bots (bot i plays in session i % sessions)
+    private BotPlayer[][] setUp() {
+        sessions = new GameSession[numSessions];
+        BotPlayer[][] bots = new BotPlayer[numSessions][];
+        SplittableRandom seeds = new SplittableRandom(seed);
+        for (int s = 0; s < numSessions; s++) {
+            int seats = numBots / numSessions + (s < numBots % numSessions ? 1 : 0);
+            Player[] players = new Player[seats];
+            bots[s] = new BotPlayer[seats];
+            for (int i = 0; i < seats; i++) {
+                players[i] = new Player("bot" + (i * numSessions + s));
+                BotPlayer bot = new BotPlayer(accuracy, thinkMillis, seeds.nextLong());
+                bot.setThinkDistribution(thinkDistribution);
+                for (int op = 0; op <= 4; op++) {
+                    bot.setWeakness(op, weakness[op]);
+                }
+                bots[s][i] = bot;
+            }
+            //time trials really have to run for time limit * scale, or scaled bots would never run out of time
+            int sessionTimeLimit = (int) Math.max(1, Math.round(timeLimit * scale));
+            sessions[s] = new GameSession(gameMode, numQuestions, sessionTimeLimit, players, seeds.nextLong());
+        }
+        return bots;
+    }
+
+    //plays every turn of one session to the end
+    private void play(GameSession session, BotPlayer[] bots) throws InterruptedException {
+        while (!session.isFinished()) {
+            BotPlayer bot = bots[session.getCurrentPlayerIndex()];
+            session.startTurn();
+            String question = session.nextQuestion();
+            while (question != null) {
+                long think = (long) (bot.thinkNanos() * scale);
+                long sleepStart = System.nanoTime();
+                Thread.sleep(think / 1_000_000L, (int) (think % 1_000_000L));
+                long start = System.nanoTime();
+                wakeLag.record(Math.max(0, start - sleepStart - think));
+
+                session.submitAnswer(bot.answer(session), start);
+                question = session.isTurnOver() ? null : session.nextQuestion();
+                answerLatency.record(System.nanoTime() - start);
+                answers.incrementAndGet();
+            }
+            session.endTurn();
+        }
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    public void run() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long heapBefore = usedHeapAfterGc(memory);
+
+        BotPlayer[][] bots = setUp();
+        ExecutorService executor = GameServer.newPerTaskExecutor();
+        CountDownLatch done = new CountDownLatch(numSessions);
+        long start = System.nanoTime();
+        for (int s = 0; s < numSessions; s++) {
+            final int session = s;
+            executor.execute(() -> {
+                try {
+                    play(sessions[session], bots[session]);
+                }
+                catch (InterruptedException | RuntimeException e) {
+                    failures.incrementAndGet();
+                }
+                finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        //one sample per second: answers in that second, so a slow start or end doesn't hide the steady rate
+        long[] perSecond = new long[16];
+        int seconds = 0;
+        long lastAnswers = 0;
+        while (!done.await(1, TimeUnit.SECONDS)) {
+            long now = answers.get();
+            if (seconds == perSecond.length) {
+                perSecond = Arrays.copyOf(perSecond, seconds * 2);
+            }
+            perSecond[seconds++] = now - lastAnswers;
+            lastAnswers = now;
+            System.out.printf("  %3ds  %8d answers/s%n", seconds, perSecond[seconds - 1]);
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+
+        //sessions are still referenced here, so this is what the finished sessions and their answer logs hold
+        long heapAfter = usedHeapAfterGc(memory);
+        long[] sorted = Arrays.copyOf(perSecond, seconds);
+        Arrays.sort(sorted);
+
+        String[] modeNames = {"", "Make a Wish", "No Mistakes", "Take Chances", "Time Trial"};
+        System.out.printf("%d bots in %d sessions (%s, accuracy %.2f, %d ms %s think x %.3f)%n", numBots, numSessions,
+                modeNames[gameMode], accuracy, thinkMillis, BotPlayer.THINK_NAMES[thinkDistribution], scale);
+        System.out.printf("finished sessions: %d, failed: %d, time: %.2fs%n", numSessions - failures.get(), failures.get(), elapsed);
+        System.out.printf("answers: %d, mean %.0f/s, sustained (median second) %d/s%n", answers.get(), answers.get() / elapsed,
+                seconds == 0 ? answers.get() : sorted[seconds / 2]);
+        StringBuilder sb = new StringBuilder();
+        GameMetrics.appendLine(sb, "answer handling", answerLatency, false);
+        GameMetrics.appendLine(sb, "think wake-up lag", wakeLag, false);
+        System.out.print(sb);
+        System.out.printf("heap growth: %.1f KB per session (%.1f KB total)%n", (heapAfter - heapBefore) / 1024.0 / numSessions,
+                (heapAfter - heapBefore) / 1024.0);
+        Arrays.fill(sessions, null);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int bots = 1000;
+        int sessionCount = 100;
+        int mode = GameSession.MAKE_A_WISH;
+        int questions = 20;
+        int time = 60;
+        double accuracy = 0.85;
+        String speed = "average";
+        String think = "exponential";
+        String weak = "";
+        double scale = 0.01;
+        long seed = RandomQuestionSource.newSeed();
+
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "bots": bots = Integer.parseInt(value); break;
+                case "sessions": sessionCount = Integer.parseInt(value); break;
+                case "mode": mode = Integer.parseInt(value); break;
+                case "questions": questions = Integer.parseInt(value); break;
+                case "time": time = Integer.parseInt(value); break;
+                case "accuracy": accuracy = Double.parseDouble(value); break;
+                case "speed": speed = value; break;
+                case "think": think = value; break;
+                case "weak": weak = value; break;
+                case "scale": scale = Double.parseDouble(value); break;
+                case "seed": seed = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+
+        LoadGenerator generator = new LoadGenerator(bots, sessionCount, mode, questions, time, accuracy,
+                BotPlayer.profileThinkMillis(speed), BotPlayer.thinkDistribution(think), scale, seed);
+        if (!weak.isEmpty()) {
+            for (String entry : weak.split(",")) {
+                int colon = entry.indexOf(':');
+                if (colon < 0) {
+                    throw new IllegalArgumentException("Expected op:amount but got: " + entry);
+                }
+                int op = Arrays.asList(GameMetrics.OP_NAMES).indexOf(entry.substring(0, colon));
+                if (op < 0) {
+                    throw new IllegalArgumentException("Unknown operation: " + entry);
+                }
+                generator.setWeakness(op, Double.parseDouble(entry.substring(colon + 1)));
+            }
+        }
+        generator.run();
+    }
+}
@@ -2,16 +2,17 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.Comparator;
-import java.util.Arrays;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.IOException;
 
 public class Main extends JFrame implements ActionListener {
 
     //defined colors for my theme
-    private static Color darkBackground = new Color(34, 40, 49);
-    private static Color darkForeground = new Color(238, 238, 238);
-    private static Color accentColor = new Color(0, 173, 181);
-    private static Color errorColor = new Color(255, 87, 87);
+    static Color darkBackground = new Color(34, 40, 49);
+    static Color darkForeground = new Color(238, 238, 238);
+    static Color accentColor = new Color(0, 173, 181);
+    static Color errorColor = new Color(255, 87, 87);
 
     //gui components
     private JPanel mainPanel, setupPanel, gamePanel, summaryPanel;
@@ -28,83 +29,174 @@ public class Main extends JFrame implements ActionListener {
     private int numQuestions = 0;
     private int timeLimit = 0;
     private Player[] users;
-    private Game currentGame; //game object for the current player/turn
-    private int currentPlayerIndex = 0;
-    private int currentQuestionCount = 0;
-    private Timer gameTimer;
-    private int livesRemaining = 3;
+    private GameSession session; //runs the mode rules and turn rotation
+    private SimultaneousSession splitSession; //everyone at once on a split screen (null when taking turns)
+    private SplitScreenPanel splitPanel;
+    private DeadlineScheduler.Handle gameTimer; //time trial countdown
+    private GameMetrics metrics = GameMetrics.global(); //latency histograms, also published over jmx
+    private volatile ScoreStore scoreStore; //all-time results on disk (null if the file can't be opened)
+    private GameEventBus events = new GameEventBus(); //side effects of the game, off the event dispatch thread
+    private GameEventBus.Subscription persistence; //writes finished turns to disk
+    private PlayerStatsStore stats; //every answer since the program started, by player (made after the first frame)
+    private volatile GameEventBus.Subscription statsUpdates; //feeds the stats store
 
     //components in setup panel
     private JTextField numPlayersField, numQuestionsField, timeLimitField;
     private JLabel numQuestionsLabel, timeLimitLabel;
     private JComboBox<String> gameModeDropdown;
+    private JCheckBox practiceCheckBox; //spaced repetition of missed facts
+    private JCheckBox noRepeatCheckBox; //every fact once before any repeats
+    private JCheckBox advancedCheckBox; //multi-step expressions with bigger numbers
+    private JLabel simultaneousLabel;
+    private JCheckBox simultaneousCheckBox; //multiplayer on a split screen instead of taking turns
     private JButton setupDoneButton;
 
     //components in game panel
     private JLabel questionLabel, scoreLabel, feedbackLabel, timeOrLivesLabel, turnLabel;
     private JTextField answerField;
     private JButton submitButton;
+    private AnswerParser answerParser = new AnswerParser();
 
     //components in summary panel
-    private JTextArea resultsArea;
+    private static final int OVERVIEW_PLAYERS = 10; //leaderboard lines above the table, the table has everyone
+
+    //what a timed handler leaves to do once its own work is measured (the next question, a turn end with
+    //its dialogs or the summary are not part of its latency)
+    private static final int THEN_NOTHING = 0;
+    private static final int THEN_NEXT_QUESTION = 1;
+    private static final int THEN_END_TURN = 2;
+    private static final int THEN_TIME_UP = 3;
+    private JTextArea resultsArea; //overview: leaderboard, all-time scores, response times
+    //sections of the overview; the all-time and hardest facts ones are filled in once the subscribers
+    //behind them have caught up, the generation keeps a late update from landing on a newer game's summary
+    private String summarySection = "", allTimeSection = "", responseSection = "", hardestSection = "", handlerSection = "";
+    private int summaryGeneration = 0;
+    private JTable answersTable; //every answer, only visible rows are rendered
+    private SummaryTableModel answersModel;
+    private JComboBox<String> playerFilterBox, opFilterBox;
+    private JCheckBox wrongOnlyCheckBox;
+    private Player[] rankedPlayers; //players in leaderboard order, backs the player filter
+
+    //startup timing: -Dmathgame.startupTiming=true prints the time to the first painted frame,
+    //-Dmathgame.exitAfterFirstFrame=true quits right after it (for StartupBenchmark and class data sharing training runs)
+    private static final boolean STARTUP_TIMING = Boolean.getBoolean("mathgame.startupTiming");
+    private static final boolean EXIT_AFTER_FIRST_FRAME = Boolean.getBoolean("mathgame.exitAfterFirstFrame");
+    private static long mainStartNanos;
+    private boolean firstFramePainted = false;
 
     public Main() {
         setTitle("Math Learning Game");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setSize(800, 600);
 
-        //consistent gui look
+        //consistent gui look (cross platform is usually the default already, then there's nothing to reload)
         try {
-            UIManager.setLookAndFeel(UIManager.getCrossPlatformLookAndFeelClassName());
+            String crossPlatform = UIManager.getCrossPlatformLookAndFeelClassName();
+            if (!UIManager.getLookAndFeel().getClass().getName().equals(crossPlatform)) {
+                UIManager.setLookAndFeel(crossPlatform);
+            }
         }
         catch (Exception e) {
             //ignore adn stick with default look
         }
 
+        subscribePersistence();
+        Runtime.getRuntime().addShutdownHook(new Thread(events::close, "event-shutdown")); //drain pending writes
+
         container = getContentPane();
         container.setLayout(cardLayout);
 
-        //initial start panel
+        //only the start panel is built up front, the other cards are built the first time they are shown
         createStartPanel();
         container.add(mainPanel, "start");
+        cardLayout.show(container, "start");
 
-        //setup panel
-        createSetupPanel();
-        container.add(setupPanel, "setup");
+        setLocationRelativeTo(null); //center the window
+        setVisible(true);
 
-        //game panel
-        createGamePanel();
-        container.add(gamePanel, "game");
+        //everything the start screen doesn't need happens after it is up, off the event dispatch thread
+        Thread init = new Thread(this::initInBackground, "startup-init");
+        init.setDaemon(true);
+        init.start();
+    }
 
-        //summary panel
-        createSummaryPanel();
-        container.add(summaryPanel, "summary");
+    //opens the score file, publishes the jmx metrics and sets up the stats store
+    private void initInBackground() {
+        //high scores survive restarts; the game still works without them (or if another instance has them open)
+        try {
+            scoreStore = ScoreStore.openDefault();
+        }
+        catch (IOException e) {
+            scoreStore = null;
+        }
+        metrics.registerMBeans();
+        subscribeStats();
+    }
 
-        cardLayout.show(container, "start");
+    //builds a card the first time it's needed
+    private void ensureSetupPanel() {
+        if (setupPanel == null) {
+            createSetupPanel();
+            container.add(setupPanel, "setup");
+        }
+    }
 
-        setLocationRelativeTo(null); //center the window
-        setVisible(true);
+    private void ensureGamePanel() {
+        if (gamePanel == null) {
+            createGamePanel();
+            container.add(gamePanel, "game");
+        }
+    }
+
+    private void ensureSummaryPanel() {
+        if (summaryPanel == null) {
+            createSummaryPanel();
+            container.add(summaryPanel, "summary");
+        }
+    }
+
+    //called when the start panel is painted for the first time
+    private void firstFramePainted() {
+        if (firstFramePainted) {
+            return;
+        }
+        firstFramePainted = true;
+        if (STARTUP_TIMING) {
+            long inMain = (System.nanoTime() - mainStartNanos) / 1_000_000;
+            long sinceJvmStart = ProcessHandle.current().info().startInstant()
+                    .map(start -> System.currentTimeMillis() - start.toEpochMilli()).orElse(-1L);
+            System.out.println("first frame: " + sinceJvmStart + " ms after jvm start, " + inMain + " ms after main");
+        }
+        if (EXIT_AFTER_FIRST_FRAME) {
+            SwingUtilities.invokeLater(() -> System.exit(0)); //after this paint has finished
+        }
     }
 
     //method to apply button styles
     private void applyButtonStyle(JButton button) {
         button.setBackground(accentColor);
         button.setForeground(darkBackground);
-        button.setFont(new Font("arial", Font.BOLD, 18));
+        button.setFont(Fonts.get("arial", Font.BOLD, 18));
         button.setFocusPainted(false);
         button.setBorder(BorderFactory.createEmptyBorder(10, 20, 10, 20));
-        button.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        button.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
     }
 
     //panel creation methods
     private void createStartPanel() {
         //change layout to 3 rows 1 column with padding and dark background
-        mainPanel = new JPanel(new BorderLayout(20, 20));
+        mainPanel = new JPanel(new BorderLayout(20, 20)) {
+            @Override
+            public void paint(Graphics g) {
+                super.paint(g);
+                firstFramePainted();
+            }
+        };
         mainPanel.setBackground(darkBackground);
         mainPanel.setBorder(BorderFactory.createEmptyBorder(100, 50, 100, 50));
 
         welcomeLabel = new JLabel("Welcome to my Math Challenge!", SwingConstants.CENTER);
-        welcomeLabel.setFont(new Font("arial", Font.BOLD, 30));
+        welcomeLabel.setFont(Fonts.get("arial", Font.BOLD, 30));
         welcomeLabel.setForeground(accentColor);
         mainPanel.add(welcomeLabel, BorderLayout.NORTH);
 
@@ -130,7 +222,7 @@ public class Main extends JFrame implements ActionListener {
     }
 
     private void createSetupPanel() {
-        setupPanel = new JPanel(new GridLayout(7, 2, 15, 15));
+        setupPanel = new JPanel(new GridLayout(10, 2, 15, 15));
         setupPanel.setBackground(darkBackground);
         setupPanel.setBorder(BorderFactory.createEmptyBorder(30, 50, 30, 50));
 
@@ -164,11 +256,40 @@ public class Main extends JFrame implements ActionListener {
         timeLimitField = createStyledTextField("60");
         setupPanel.add(timeLimitField);
 
-        setupPanel.add(new JLabel(""));//empty cell for spacing (row 6 col 1)
+        //re-ask facts the players got wrong (remembered between games per player name)
+        setupPanel.add(createStyledLabel("Practice missed facts:"));
+        practiceCheckBox = new JCheckBox();
+        practiceCheckBox.setBackground(darkBackground);
+        practiceCheckBox.setForeground(darkForeground);
+        setupPanel.add(practiceCheckBox);
+
+        //no fact comes up twice until all of its operation's facts have been asked
+        setupPanel.add(createStyledLabel("No repeated questions:"));
+        noRepeatCheckBox = new JCheckBox();
+        noRepeatCheckBox.setBackground(darkBackground);
+        noRepeatCheckBox.setForeground(darkForeground);
+        setupPanel.add(noRepeatCheckBox);
+
+        //multi-step questions with precedence and parentheses
+        setupPanel.add(createStyledLabel("Advanced expressions:"));
+        advancedCheckBox = new JCheckBox();
+        advancedCheckBox.setBackground(darkBackground);
+        advancedCheckBox.setForeground(darkForeground);
+        setupPanel.add(advancedCheckBox);
+
+        //multiplayer: everybody answers at the same time, each in their own part of the screen
+        simultaneousLabel = createStyledLabel("Play at the same time:");
+        setupPanel.add(simultaneousLabel);
+        simultaneousCheckBox = new JCheckBox();
+        simultaneousCheckBox.setBackground(darkBackground);
+        simultaneousCheckBox.setForeground(darkForeground);
+        setupPanel.add(simultaneousCheckBox);
+
+        setupPanel.add(new JLabel(""));//empty cell for spacing (row 10 col 1)
         setupDoneButton = new JButton("Start");
         applyButtonStyle(setupDoneButton);
         setupDoneButton.addActionListener(e -> handleSetupCompletion());
-        setupPanel.add(setupDoneButton); //row 6 (col 2)
+        setupPanel.add(setupDoneButton); //row 10 (col 2)
 
         updateSetupVisibility(); //set initial visibility based on default mode (make a wish)
     }
@@ -177,7 +298,7 @@ public class Main extends JFrame implements ActionListener {
     private JLabel createStyledLabel(String text) {
         JLabel label = new JLabel(text);
         label.setForeground(darkForeground);
-        label.setFont(new Font("arial", Font.PLAIN, 16));
+        label.setFont(Fonts.get("arial", Font.PLAIN, 16));
         return label;
     }
 
@@ -235,7 +356,7 @@ public class Main extends JFrame implements ActionListener {
 
         //center area for question
         questionLabel = new JLabel("Waiting for game to start...", SwingConstants.CENTER);
-        questionLabel.setFont(new Font("monospaced", Font.BOLD, 64)); //question formatting
+        questionLabel.setFont(Fonts.get("monospaced", Font.BOLD, 64)); //question formatting
         questionLabel.setForeground(accentColor);
 
         //bottom bar for input and feedback
@@ -243,7 +364,7 @@ public class Main extends JFrame implements ActionListener {
         controlPanel.setBackground(darkBackground);
 
         feedbackLabel = new JLabel("Enter your answer below.", SwingConstants.CENTER);
-        feedbackLabel.setFont(new Font("arial", Font.ITALIC, 16));
+        feedbackLabel.setFont(Fonts.get("arial", Font.ITALIC, 16));
         feedbackLabel.setForeground(darkForeground); //default color
 
         JPanel inputPanel = new JPanel(new FlowLayout());
@@ -251,7 +372,7 @@ public class Main extends JFrame implements ActionListener {
 
         answerField = createStyledTextField("");
         answerField.setColumns(15);
-        answerField.setFont(new Font("serif", Font.PLAIN, 24));
+        answerField.setFont(Fonts.get("serif", Font.PLAIN, 24));
         answerField.setHorizontalAlignment(JTextField.CENTER);
 
         submitButton = new JButton("Submit Answer");
@@ -275,49 +396,116 @@ public class Main extends JFrame implements ActionListener {
         summaryPanel.setBorder(BorderFactory.createEmptyBorder(30, 30, 30, 30));
 
         JLabel title = new JLabel("Game Results/Leaderboard", SwingConstants.CENTER);
-        title.setFont(new Font("arial", Font.BOLD, 28));
+        title.setFont(Fonts.get("arial", Font.BOLD, 28));
         title.setForeground(accentColor);
 
-        resultsArea = new JTextArea(20, 50);
+        resultsArea = new JTextArea(8, 50);
         resultsArea.setEditable(false);
         resultsArea.setBackground(darkBackground.brighter().brighter().brighter()); //slightly lighter dark gray
         resultsArea.setForeground(darkForeground);
-        resultsArea.setFont(new Font("monospaced", Font.PLAIN, 14));
+        resultsArea.setFont(Fonts.get("monospaced", Font.PLAIN, 14));
 
         //set up the scroll pane with the dark background
         JScrollPane scrollPane = new JScrollPane(resultsArea);
         scrollPane.setBorder(BorderFactory.createLineBorder(accentColor, 1));
         scrollPane.getViewport().setBackground(darkBackground.brighter().brighter().brighter());
 
+        //answers table: a lazy model, so opening the screen doesn't depend on how many answers there are
+        answersModel = new SummaryTableModel(new Player[0]);
+        answersTable = new JTable(answersModel);
+        answersTable.setFillsViewportHeight(true);
+        answersTable.setBackground(darkBackground.brighter().brighter().brighter());
+        answersTable.setForeground(darkForeground);
+        answersTable.setGridColor(darkBackground);
+        answersTable.setSelectionBackground(accentColor);
+        answersTable.setSelectionForeground(darkBackground);
+        answersTable.setFont(Fonts.get("monospaced", Font.PLAIN, 14));
+        answersTable.setRowHeight(20);
+        answersTable.getTableHeader().setBackground(darkBackground);
+        answersTable.getTableHeader().setForeground(accentColor);
+        answersTable.getTableHeader().setReorderingAllowed(false);
+        answersTable.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = answersTable.columnAtPoint(e.getPoint());
+                if (column >= 0) {
+                    answersModel.sortBy(answersTable.convertColumnIndexToModel(column)); //click again to reverse
+                }
+            }
+        });
+        JScrollPane tableScrollPane = new JScrollPane(answersTable);
+        tableScrollPane.setBorder(BorderFactory.createLineBorder(accentColor, 1));
+        tableScrollPane.getViewport().setBackground(darkBackground.brighter().brighter().brighter());
+
+        //filters for the table
+        playerFilterBox = new JComboBox<>();
+        opFilterBox = new JComboBox<>(new String[] {"All operations", "+", "-", "*", "/", "Expressions"});
+        wrongOnlyCheckBox = new JCheckBox("Wrong answers only");
+        wrongOnlyCheckBox.setBackground(darkBackground);
+        wrongOnlyCheckBox.setForeground(darkForeground);
+        styleFilterBox(playerFilterBox);
+        styleFilterBox(opFilterBox);
+        wrongOnlyCheckBox.addActionListener(e -> applyAnswerFilter());
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        filterPanel.setBackground(darkBackground);
+        filterPanel.add(createStyledLabel("Show:"));
+        filterPanel.add(playerFilterBox);
+        filterPanel.add(opFilterBox);
+        filterPanel.add(wrongOnlyCheckBox);
+
+        JPanel answersPanel = new JPanel(new BorderLayout(5, 5));
+        answersPanel.setBackground(darkBackground);
+        answersPanel.add(filterPanel, BorderLayout.NORTH);
+        answersPanel.add(tableScrollPane, BorderLayout.CENTER);
+
+        JSplitPane resultsSplit = new JSplitPane(JSplitPane.VERTICAL_SPLIT, scrollPane, answersPanel);
+        resultsSplit.setBackground(darkBackground);
+        resultsSplit.setBorder(null);
+        resultsSplit.setResizeWeight(0.35);
+
         JButton playAgainButton = new JButton("Play Again");
         applyButtonStyle(playAgainButton);
         playAgainButton.addActionListener(e -> resetGame());
 
         summaryPanel.add(title, BorderLayout.NORTH);
-        summaryPanel.add(scrollPane, BorderLayout.CENTER);
+        summaryPanel.add(resultsSplit, BorderLayout.CENTER);
         summaryPanel.add(playAgainButton, BorderLayout.SOUTH);
     }
 
+    private void styleFilterBox(JComboBox<String> box) {
+        box.setBackground(darkBackground.brighter());
+        box.setForeground(darkForeground);
+        box.addActionListener(e -> applyAnswerFilter());
+    }
+
     //action listener for main buttons
     @Override
     public void actionPerformed(ActionEvent e) {
+        ensureSetupPanel();
         if (e.getSource() == singlePlayerButton) {
             currentMode = 1; //single player mode
             numPlayersField.setText("1");
             numPlayersField.setEnabled(false); //disable changing num of players
+            simultaneousLabel.setVisible(false);
+            simultaneousCheckBox.setVisible(false);
+            simultaneousCheckBox.setSelected(false);
             cardLayout.show(container, "setup");
         }
         else if (e.getSource() == multiPlayerButton) {
             currentMode = 2; //multiplayer mode
             numPlayersField.setEnabled(true); //enable changing num of players
+            simultaneousLabel.setVisible(true);
+            simultaneousCheckBox.setVisible(true);
             cardLayout.show(container, "setup");
         }
     }
 
     //setup handling logic
     private void handleSetupCompletion() {
-        //reset feedback color before showing error
-        feedbackLabel.setForeground(darkForeground);
+        //reset feedback color before showing error (the game panel is only built for the first game)
+        if (feedbackLabel != null) {
+            feedbackLabel.setForeground(darkForeground);
+        }
 
         try {
             //get inputs
@@ -364,44 +552,115 @@ public class Main extends JFrame implements ActionListener {
                 users[i] = new Player(playerName);
             }
 
-            //initialize game state
-            currentPlayerIndex = 0;
-            currentQuestionCount = 0;
-            livesRemaining = 3;
-
-            //start the game
-            cardLayout.show(container, "game");
-            startNewTurn();
-
+            if (practiceCheckBox.isSelected()) {
+                //reading the practice profiles is file i/o, so it's done off the event dispatch thread and
+                //the game starts once they're in
+                setupDoneButton.setEnabled(false);
+                loadPracticeInBackground(users, () -> {
+                    setupDoneButton.setEnabled(true);
+                    startGame();
+                });
+                return;
+            }
+            startGame();
         }
         catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Input error; please check the fields (number of players/questions/time limit) and ensure they are valid numbers", "input error", JOptionPane.ERROR_MESSAGE);
         }
     }
 
+    //every player's practice profile, read on a background thread; then runs on the event dispatch thread
+    private void loadPracticeInBackground(Player[] players, Runnable then) {
+        Thread loader = new Thread(() -> {
+            for (Player player : players) {
+                player.mistakes = loadPractice(player.name);
+            }
+            SwingUtilities.invokeLater(then);
+        }, "practice-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    //starts the game set up above (practice profiles are already loaded if practice is on)
+    private void startGame() {
+        if (simultaneousCheckBox.isSelected()) {
+            startSplitScreen();
+            return;
+        }
+
+        //initialize game state
+        session = new GameSession(selectedGameMode, numQuestions, timeLimit, users);
+        if (noRepeatCheckBox.isSelected()) {
+            session.enableNoRepeat(); //before prefetching, the producer draws from the sampler
+        }
+        if (advancedCheckBox.isSelected()) {
+            session.enableExpressions(new ExpressionGenerator(3, 4, 100)); //3-4 numbers up to 100
+        }
+        else {
+            //keep question generation off the event dispatch thread (expressions are made inline and
+            //share the random source, so a producer drawing from it too would change the questions)
+            session.enablePrefetch(64);
+        }
+        session.enableMetrics(metrics);
+        session.enableEvents(events);
+        if (practiceCheckBox.isSelected()) {
+            session.enableSpacedRepetition(); //keeps the profiles loaded before the game
+        }
+        session.enableRecording(); //last, it records the settings above; saved when the session ends
+
+        //start the game
+        ensureGamePanel();
+        cardLayout.show(container, "game");
+        startNewTurn();
+    }
+
+    //simultaneous multiplayer: one session per player, all started together on the split screen
+    private void startSplitScreen() {
+        splitSession = new SimultaneousSession(selectedGameMode, numQuestions, timeLimit, users);
+        for (int p = 0; p < users.length; p++) {
+            GameSession playerSession = splitSession.getSession(p);
+            if (noRepeatCheckBox.isSelected()) {
+                playerSession.enableNoRepeat();
+            }
+            if (advancedCheckBox.isSelected()) {
+                playerSession.enableExpressions(new ExpressionGenerator(3, 4, 100));
+            }
+            playerSession.enableMetrics(metrics);
+            playerSession.enableEvents(events); //every session publishes from the event dispatch thread
+            if (practiceCheckBox.isSelected()) {
+                playerSession.enableSpacedRepetition(); //keeps the profiles loaded before the game
+            }
+            playerSession.enableRecording(); //one recording per player, each is a session of its own
+        }
+
+        splitPanel = new SplitScreenPanel(splitSession, selectedGameMode, this::splitScreenFinished);
+        container.add(splitPanel, "split");
+        cardLayout.show(container, "split");
+        splitPanel.start(timeLimit);
+    }
+
+    private void splitScreenFinished() {
+        showSummary(); //results were saved by the persistence subscriber as each player finished
+    }
+
     private void startNewTurn() {
-        if (currentPlayerIndex >= users.length) {
+        if (session.isFinished()) {
             //all players finished show summary
             showSummary();
             return;
         }
 
-        Player currentPlayer = users[currentPlayerIndex];
+        session.startTurn();
+        Player currentPlayer = session.getCurrentPlayer();
         turnLabel.setText("Player: " + currentPlayer.name);
-        currentGame = new Game();
-        currentGame.score = currentPlayer.score;
-        currentGame.summary = currentPlayer.summary;
-
-        currentQuestionCount = 0;
 
         //score label reflects the players total score before the first question
-        scoreLabel.setText("Score: " + currentPlayer.score);
+        updateScoreLabel();
 
-        if (selectedGameMode == 3) { //3 lives mode
-            livesRemaining = 3;
-            timeOrLivesLabel.setText("Lives: " + livesRemaining);
+        if (selectedGameMode == GameSession.TAKE_CHANCES) { //3 lives mode
+            timeOrLivesLabel.setText("Lives: " + session.getLivesRemaining());
         }
-        else if (selectedGameMode == 4) { //time trial mode
+        else if (selectedGameMode == GameSession.TIME_TRIAL) { //time trial mode
             timeOrLivesLabel.setText("Time: " + timeLimit + "s");
             startTimer();
         }
@@ -413,168 +672,451 @@ public class Main extends JFrame implements ActionListener {
     }
 
     private void generateNextQuestion() {
+        long start = System.nanoTime();
+        int next;
+        try {
+            next = showNextQuestion();
+        }
+        finally {
+            metrics.handlerLatency(GameMetrics.NEXT_QUESTION).record(System.nanoTime() - start);
+        }
+        continueWith(next);
+    }
+
+    private int showNextQuestion() {
         //reset feedback color
         feedbackLabel.setForeground(darkForeground);
 
-        if (selectedGameMode == 1 && currentQuestionCount >= numQuestions) {
+        //get question string from the session (null once the turn is over)
+        String question = session.nextQuestion();
+        if (question == null) {
             //end of mode 1 (make a wish)
-            endTurn();
-            return;
+            return THEN_END_TURN;
         }
 
-        //generate a random operation choice (1-4)
-        int opChoice = (int)(Math.random() * 4 + 1);
-
-        //get question string from gamejava
-        String question = currentGame.generateQuestionForGUI(opChoice);
-
         questionLabel.setText(question);
         feedbackLabel.setText("Enter your answer below.");
         answerField.setText("");
         answerField.requestFocusInWindow();
-        currentQuestionCount++; //increment question count
+        return THEN_NOTHING;
+    }
+
+    //runs the step a handler left for after its timing
+    private void continueWith(int next) {
+        if (next == THEN_NEXT_QUESTION) {
+            generateNextQuestion();
+        }
+        else if (next == THEN_END_TURN) {
+            endTurn();
+        }
+        else if (next == THEN_TIME_UP) {
+            timeUp();
+        }
+    }
+
+    //score of the current player, plus their live place in multiplayer
+    private void updateScoreLabel() {
+        if (currentMode == 2 && session.getNumPlayers() > 1) {
+            scoreLabel.setText("Score: " + session.getScore() + " (rank " + session.getRank(session.getCurrentPlayerIndex()) + "/" + session.getNumPlayers() + ")");
+        }
+        else {
+            scoreLabel.setText("Score: " + session.getScore());
+        }
     }
 
     //answer submission handling
     private void handleSubmitAnswer() {
-        if (answerField.getText().trim().isEmpty()) {
-            feedbackLabel.setForeground(errorColor);
-            feedbackLabel.setText("Please enter an answer");
-            return;
+        long start = System.nanoTime();
+        int next;
+        try {
+            next = submitAnswer();
         }
+        finally {
+            metrics.handlerLatency(GameMetrics.SUBMIT_ANSWER).record(System.nanoTime() - start);
+        }
+        continueWith(next);
+    }
 
-        try {
-            double userAnswer = Double.parseDouble(answerField.getText());
-            boolean correct = currentGame.checkAnswer(userAnswer);
-
-            if (correct) {
-                feedbackLabel.setForeground(accentColor);
-                feedbackLabel.setText("Correct (+1 point)");
-                scoreLabel.setText("Score: " + currentGame.score);
-                //all modes continue on correct answer
-                generateNextQuestion();
-            }
-            else {
-                feedbackLabel.setForeground(errorColor);
-                feedbackLabel.setText("False; the correct answer was " + currentGame.getActualAnswer());
+    private int submitAnswer() {
+        //an answer typed after the time trial deadline doesn't count
+        if (session.checkTime(System.nanoTime())) {
+            return THEN_TIME_UP;
+        }
 
-                if (selectedGameMode == 2) { //no mistakes mode
-                    endTurn(); //end immediately on first mistake
-                }
-                else if (selectedGameMode == 3) { //take chances mode
-                    livesRemaining--;
-                    timeOrLivesLabel.setText("Lives: " + livesRemaining);
-                    if (livesRemaining <= 0) {
-                        endTurn(); //end if no lives remain
-                    }
-                    else {
-                        generateNextQuestion(); //continue if lives remain
-                    }
-                }
-                else {
-                    //mode 1 and 4 continue on incorrect answer
-                    generateNextQuestion();
-                }
+        //parse straight from the field's document (no getText/trim/parseDouble)
+        int status = answerParser.parse(answerField.getDocument());
+        if (status != AnswerParser.OK) {
+            feedbackLabel.setForeground(errorColor);
+            feedbackLabel.setText(AnswerParser.describe(status));
+            if (status != AnswerParser.EMPTY) {
+                answerField.setText("");
+                answerField.requestFocusInWindow();
             }
+            return THEN_NOTHING;
         }
-        catch (NumberFormatException ex) {
+
+        boolean correct = session.submitAnswer(answerParser.getValue());
+
+        if (correct) {
+            feedbackLabel.setForeground(accentColor);
+            feedbackLabel.setText("Correct (+1 point)");
+            updateScoreLabel();
+        }
+        else {
             feedbackLabel.setForeground(errorColor);
-            feedbackLabel.setText("Invalid input; please enter a number");
-            answerField.setText("");
-            answerField.requestFocusInWindow();
+            feedbackLabel.setText("False; the correct answer was " + session.getCurrentGame().getActualAnswer());
+            if (selectedGameMode == GameSession.TAKE_CHANCES) {
+                timeOrLivesLabel.setText("Lives: " + session.getLivesRemaining());
+            }
         }
+
+        //the session applies the mode rules (no mistakes, lives) and tells us if the turn ended
+        return session.isTurnOver() ? THEN_END_TURN : THEN_NEXT_QUESTION;
     }
 
-    //timer logic for mode 4
+    //timer logic for mode 4: the shared scheduler works out the time left from the turn's
+    //monotonic start, so a stalled gui can't stretch the limit, and only calls back when the second changes
     private void startTimer() {
         if (gameTimer != null) {
-            gameTimer.stop();
+            gameTimer.cancel();
         }
 
-        gameTimer = new Timer(1000, new ActionListener() {
-            private int timeElapsed = 0;
+        final GameSession timedSession = session;
+        final long turnStart = session.getTurnStartNanos();
+        gameTimer = DeadlineScheduler.get().schedule(turnStart, timeLimit * 1_000_000_000L, new DeadlineScheduler.Listener() {
             @Override
-            public void actionPerformed(ActionEvent e) {
-                timeElapsed++;
-                int timeLeft = timeLimit - timeElapsed;
-                timeOrLivesLabel.setText("Time: " + timeLeft + "s");
-
-                //flash the time label red when less than 10 seconds remain
-                if (timeLeft <= 10) {
-                    timeOrLivesLabel.setForeground(errorColor);
-                }
-                else {
-                    timeOrLivesLabel.setForeground(darkForeground);
-                }
-
+            public void secondsLeft(int seconds) {
+                SwingUtilities.invokeLater(() -> {
+                    if (isCurrentTurn(timedSession, turnStart)) {
+                        showTimeLeft(seconds);
+                    }
+                });
+            }
 
-                if (timeLeft <= 0) {
-                    ((Timer) e.getSource()).stop();
-                    JOptionPane.showMessageDialog(container, "Time's up! Your turn has ended");
-                    endTurn(); //end the game
-                }
+            @Override
+            public void expired() {
+                SwingUtilities.invokeLater(() -> {
+                    if (isCurrentTurn(timedSession, turnStart)) {
+                        timeUp();
+                    }
+                });
             }
         });
-        gameTimer.start();
+    }
+
+    //callbacks queued before a turn ended must not touch the next turn
+    private boolean isCurrentTurn(GameSession timedSession, long turnStart) {
+        return session == timedSession && !session.isTurnOver() && session.getTurnStartNanos() == turnStart;
+    }
+
+    private void showTimeLeft(int timeLeft) {
+        timeOrLivesLabel.setText("Time: " + timeLeft + "s");
+
+        //flash the time label red when less than 10 seconds remain
+        if (timeLeft <= 10) {
+            timeOrLivesLabel.setForeground(errorColor);
+        }
+        else {
+            timeOrLivesLabel.setForeground(darkForeground);
+        }
+    }
+
+    private void timeUp() {
+        session.checkTime(System.nanoTime());
+        JOptionPane.showMessageDialog(container, "Time's up! Your turn has ended");
+        endTurn(); //end the game
     }
 
     private void endTurn() {
         if (gameTimer != null) {
-            gameTimer.stop();
+            gameTimer.cancel();
         }
 
-        //save results to player object
-        users[currentPlayerIndex].score = currentGame.score;
-        users[currentPlayerIndex].summary = currentGame.summary;
+        //save results to player object and move to the next player (the turn end event saves them to disk)
+        session.endTurn();
 
-        if (currentMode == 1) { //single player
+        if (session.isFinished()) {
+            //all players finished (or single player done) show summary
             showSummary();
         }
         else { //multiplayer
-            currentPlayerIndex++;
-            if (currentPlayerIndex < users.length) {
-                //prompt next player and start new turn
-                JOptionPane.showMessageDialog(this, users[currentPlayerIndex].name + " it's your turn!");
-                startNewTurn();
+            //prompt next player and start new turn
+            JOptionPane.showMessageDialog(this, session.getCurrentPlayer().name + " it's your turn!");
+            startNewTurn();
+        }
+    }
+
+    //finished turns and session recordings are written to disk by a subscriber thread, so a slow disk
+    //never stalls the gui (blocking rather than dropping, these events are rare and must not be lost)
+    private void subscribePersistence() {
+        int eventMask = 1 << GameEventBus.TURN_ENDED | 1 << GameEventBus.SESSION_ENDED;
+        persistence = events.subscribe("persistence", 256, eventMask, GameEventBus.BLOCK, (event, endOfBatch) -> {
+            if (event.type == GameEventBus.TURN_ENDED) {
+                saveResult(event.player.name, event.gameMode, event.score, event.timestamp, endOfBatch);
+                savePractice(event.player); //the player's turn is over, nothing else touches their model now
             }
             else {
-                //all players finished show summary
-                showSummary();
+                saveRecording(event.session.getRecorder());
             }
+        });
+    }
+
+    //answer statistics are analytics, so a backed up stats thread drops answers rather than slowing the game
+    private void subscribeStats() {
+        stats = new PlayerStatsStore();
+        statsUpdates = events.subscribe("stats", 4096, 1 << GameEventBus.ANSWER_SUBMITTED, GameEventBus.DROP, (event, endOfBatch) ->
+                stats.record(stats.addPlayer(event.player.name), event.opChoice, event.factId, event.correct, event.latencyNanos));
+    }
+
+    //the finished session's recording, for java SessionReplay (on the persistence thread)
+    private void saveRecording(SessionRecorder recorder) {
+        if (recorder == null) {
+            return;
+        }
+        try {
+            recorder.save();
+        }
+        catch (IOException e) {
+            //recordings are for checking disputes later, the game isn't affected
+        }
+    }
+
+    //appends the finished turn to the all-time results (on the persistence thread)
+    private void saveResult(String name, int gameMode, int score, long timestamp, boolean flush) {
+        ScoreStore store = scoreStore;
+        if (store == null) {
+            return;
+        }
+        try {
+            store.append(name, gameMode, score, timestamp);
+            if (flush) {
+                store.flush(); //once per batch of turn ends
+            }
+        }
+        catch (IOException e) {
+            scoreStore = null; //stop trying, the current game isn't affected
+        }
+    }
+
+    //a player's missed facts from earlier games (a fresh model if there are none or the file can't be read)
+    private MistakeModel loadPractice(String name) {
+        try {
+            return MistakeModel.load(name);
+        }
+        catch (IOException e) {
+            return new MistakeModel();
         }
     }
 
+    private void savePractice(Player player) {
+        if (player.mistakes == null) {
+            return;
+        }
+        try {
+            player.mistakes.save(player.name);
+        }
+        catch (IOException e) {
+            //practice history is a bonus, the game isn't affected
+        }
+    }
+
+    //all-time top 5 for the mode (on the persistence thread, once it has written the last turn's result)
+    private String buildAllTimeText(int gameMode) {
+        ScoreStore store = scoreStore;
+        if (store == null) {
+            return "";
+        }
+        StringBuilder allTimeText = new StringBuilder("\n--- All-Time Top 5 ---\n");
+        int rank = 1;
+        for (ScoreStore.Entry entry : store.top(gameMode, 5)) {
+            allTimeText.append(String.format("%-3s", rank++ + ".")).append(String.format("%-20s", entry.name)).append(": ").append(entry.score).append("\n");
+        }
+        return allTimeText.toString();
+    }
+
+    //response times per player and operation
+    private String buildLatencyText() {
+        StringBuilder latencyText = new StringBuilder("\n--- Response Times ---\n");
+        for (int i = 0; i < Math.min(users.length, OVERVIEW_PLAYERS); i++) {
+            for (int op = 0; op <= 4; op++) {
+                LatencyHistogram histogram = splitSession != null ? splitSession.getSession(i).getAnswerLatency(0, op) : session.getAnswerLatency(i, op);
+                if (histogram != null) {
+                    String opLabel = op == Question.EXPRESSION ? GameMetrics.OP_NAMES[op] : AnswerLog.opSymbol(op);
+                    GameMetrics.appendLine(latencyText, users[i].name + " " + opLabel, histogram, true);
+                }
+            }
+        }
+        return latencyText.toString();
+    }
+
+    //how long the gui handlers took
+    private String buildHandlerText() {
+        StringBuilder handlerText = new StringBuilder("\n--- Handler Times ---\n");
+        metrics.appendHandlerText(handlerText);
+        return handlerText.toString();
+    }
+
+    //facts most often got wrong by anyone since the program started (on the stats thread, once it has
+    //recorded the last answers)
+    private String buildHardestFactsText() {
+        int[] hardest = stats.hardestFacts(3, 3);
+        if (hardest.length == 0) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder("\n--- Hardest Facts ---\n");
+        for (int factId : hardest) {
+            text.append(String.format("%-12s", PlayerStatsStore.factText(factId)))
+                    .append(String.format("%3.0f%% right of %d%n", 100 * stats.getFactAccuracy(factId), stats.getFactAttempts(factId)));
+        }
+        return text.toString();
+    }
+
+    //the summary is shown at once; the sections that need a subscriber to catch up first are built on
+    //that subscriber's thread when it's idle and filled in afterwards, so the gui never waits for them
+    private void fillInLaterSections() {
+        int generation = ++summaryGeneration;
+        int gameMode = selectedGameMode;
+        persistence.whenIdle(() -> {
+            String text = buildAllTimeText(gameMode);
+            SwingUtilities.invokeLater(() -> {
+                if (generation == summaryGeneration) {
+                    allTimeSection = text;
+                    refreshResultsText();
+                }
+            });
+        });
+        GameEventBus.Subscription updates = statsUpdates;
+        if (updates != null) { //null while still starting up
+            updates.whenIdle(() -> {
+                String text = buildHardestFactsText();
+                SwingUtilities.invokeLater(() -> {
+                    if (generation == summaryGeneration) {
+                        hardestSection = text;
+                        refreshResultsText();
+                    }
+                });
+            });
+        }
+    }
+
+    private void refreshResultsText() {
+        int caret = resultsArea.getCaretPosition();
+        resultsArea.setText(summarySection + allTimeSection + responseSection + hardestSection + handlerSection);
+        resultsArea.setCaretPosition(Math.min(caret, resultsArea.getDocument().getLength()));
+    }
+
     //summary and reset logic
     private void showSummary() {
-        //sort the players for the leaderboard
-        Arrays.sort(users, Comparator.comparingInt((Player user) -> user.score).reversed());
+        long start = System.nanoTime();
+        try {
+            showResults();
+        }
+        finally {
+            metrics.handlerLatency(GameMetrics.SHOW_SUMMARY).record(System.nanoTime() - start);
+        }
+    }
+
+    private void showResults() {
+        //players sorted for the leaderboard
+        Player[] results;
+        if (splitSession != null) {
+            splitSession.close();
+            results = splitSession.getResults();
+        }
+        else {
+            session.close(); //no more questions needed
+            results = session.getResults();
+        }
+
+        ensureSummaryPanel();
+        summarySection = buildSummaryText(currentMode, String.valueOf(gameModeDropdown.getSelectedItem()), results);
+        allTimeSection = "";
+        responseSection = buildLatencyText();
+        hardestSection = "";
+        handlerSection = buildHandlerText();
+        refreshResultsText();
+        resultsArea.setCaretPosition(0);
+        fillInLaterSections();
+        showAnswers(results);
+        cardLayout.show(container, "summary");
+    }
+
+    //points the answers table at the finished game (no rows are read until they are painted)
+    private void showAnswers(Player[] results) {
+        rankedPlayers = results;
+        answersModel = new SummaryTableModel(results);
+        answersTable.setModel(answersModel);
+        answersTable.getColumnModel().getColumn(SummaryTableModel.QUESTION).setPreferredWidth(200);
+
+        //player filter reads names from the results on demand instead of copying them into the combo box
+        playerFilterBox.setModel(new PlayerFilterModel());
+        opFilterBox.setSelectedIndex(0);
+        wrongOnlyCheckBox.setSelected(false);
+        boolean multiplayer = results.length > 1;
+        playerFilterBox.setVisible(multiplayer);
+    }
+
+    private void applyAnswerFilter() {
+        if (rankedPlayers == null) {
+            return;
+        }
+        int player = playerFilterBox.getSelectedIndex() <= 0 ? SummaryTableModel.ALL : playerFilterBox.getSelectedIndex() - 1;
+        int op = opFilterBox.getSelectedIndex();
+        int opChoice = op == 0 ? SummaryTableModel.ALL : op == 5 ? Question.EXPRESSION : op;
+        answersModel.setFilter(player, opChoice, wrongOnlyCheckBox.isSelected());
+    }
+
+    //"All players" followed by the players in leaderboard order
+    private class PlayerFilterModel extends AbstractListModel<String> implements ComboBoxModel<String> {
+        private Object selected = "All players";
 
+        @Override
+        public int getSize() {
+            return rankedPlayers.length + 1;
+        }
+
+        @Override
+        public String getElementAt(int index) {
+            return index == 0 ? "All players" : index + ". " + rankedPlayers[index - 1].name;
+        }
+
+        @Override
+        public void setSelectedItem(Object item) {
+            selected = item;
+            fireContentsChanged(this, -1, -1);
+        }
+
+        @Override
+        public Object getSelectedItem() {
+            return selected;
+        }
+    }
+
+    //builds the game over text with the top of the leaderboard (static so it can be benchmarked without a frame)
+    //every individual answer is in the answers table instead, so this stays small however long the game was
+    static String buildSummaryText(int currentMode, String gameModeName, Player[] results) {
         StringBuilder summaryText = new StringBuilder();
         summaryText.append("--- Game Over ---\n");
-        summaryText.append("Game mode: ").append(gameModeDropdown.getSelectedItem()).append("\n\n");
+        summaryText.append("Game mode: ").append(gameModeName).append("\n\n");
 
         if (currentMode == 1) {
             //single player summary
-            summaryText.append("Total Score: ").append(users[0].score).append("\n");
-            summaryText.append("\n--- Question Summary ---\n").append(users[0].summary);
+            summaryText.append("Total Score: ").append(results[0].score).append("\n");
         }
         else {
             //multiplayer leaderboard
             summaryText.append("--- Leaderboard ---\n");
-            for (int i = 0; i < users.length; i++) {
-                summaryText.append(String.format("%-3s", (i + 1) + ".")).append(String.format("%-20s", users[i].name)).append(": ").append(users[i].score);
+            for (int i = 0; i < Math.min(results.length, OVERVIEW_PLAYERS); i++) {
+                summaryText.append(String.format("%-3s", (i + 1) + ".")).append(String.format("%-20s", results[i].name)).append(": ").append(results[i].score);
                 if (i == 0) summaryText.append(" (winner!)");
                 summaryText.append("\n");
             }
-            summaryText.append("\n--- Detailed Summary (All Players) ---\n");
-            for (Player user : users) {
-                summaryText.append("\nPlayer: ").append(user.name).append(" (Score: ").append(user.score).append(")\n");
-                summaryText.append("Questions:\n").append(user.summary).append("\n");
+            if (results.length > OVERVIEW_PLAYERS) {
+                summaryText.append("... and ").append(results.length - OVERVIEW_PLAYERS).append(" more (see the answers table)\n");
             }
         }
 
-        resultsArea.setText(summaryText.toString());
-        cardLayout.show(container, "summary");
+        return summaryText.toString();
     }
 
     private void resetGame() {
@@ -582,8 +1124,21 @@ public class Main extends JFrame implements ActionListener {
         currentMode = 0;
         selectedGameMode = 0;
         users = null;
+        if (session != null) {
+            session.close();
+        }
+        session = null;
+        if (splitPanel != null) {
+            splitPanel.stop();
+            container.remove(splitPanel);
+            splitPanel = null;
+        }
+        if (splitSession != null) {
+            splitSession.close();
+        }
+        splitSession = null;
         if (gameTimer != null) {
-            gameTimer.stop();
+            gameTimer.cancel();
         }
 
         //reset ui
@@ -596,6 +1151,7 @@ public class Main extends JFrame implements ActionListener {
 
     //initializes gui on event dispatch thread
     public static void main(String[] args) {
+        mainStartNanos = System.nanoTime();
         SwingUtilities.invokeLater(() -> new Main()); //run the gui on the event dispatch thread
     }
 }
\ No newline at end of file
@@ -0,0 +1,246 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+//one player's missed facts, scheduled for spaced re-asking
+//a missed fact comes back a few questions later; each correct answer pushes it twice as far out and
+//lowers its error weight, and once the weight reaches 0 the fact is retired (so it isn't re-asked forever)
+//due facts live in an indexed binary min-heap over fact ids ordered by (due, higher weight first),
+//so finding the next due fact is O(1) and every update is O(log n), with no allocation
+public class MistakeModel {
+    public static final int RETRY_AFTER = 3; //questions until a missed fact is asked again
+    public static final int MAX_WEIGHT = 5; //more misses than this don't make a fact any weaker
+    private static final int MAGIC = 0x4D474D31; //"MGM1"
+
+    private final int[] heap; //fact ids, heap ordered
+    private final int[] position; //heap index + 1 of each fact id, 0 if it isn't tracked
+    private final int[] due; //question count at which the fact should be asked again
+    private final byte[] weight; //outstanding misses; correct answers pay them off one by one
+    private final byte[] streak; //correct answers since the last miss (doubles the gap each time)
+    private int size = 0;
+    private int clock = 0; //questions this player has been asked
+
+    public MistakeModel() {
+        int facts = FactTable.get().totalFacts();
+        heap = new int[facts];
+        position = new int[facts];
+        due = new int[facts];
+        weight = new byte[facts];
+        streak = new byte[facts];
+    }
+
+    //counts one question shown to the player (call before looking for due facts)
+    public void questionAsked() {
+        clock++;
+    }
+
+    //fact id of the most urgent fact whose time has come, or -1 if none is due
+    public int dueFact() {
+        if (size == 0 || due[heap[0]] > clock) {
+            return -1;
+        }
+        return heap[0];
+    }
+
+    //updates the fact's schedule after the player answered it
+    public void record(int factId, boolean correct) {
+        if (!correct) {
+            weight[factId] = (byte) Math.min(weight[factId] + 1, MAX_WEIGHT);
+            streak[factId] = 0;
+            due[factId] = clock + RETRY_AFTER;
+        }
+        else if (position[factId] == 0) {
+            return; //never missed (or already retired), nothing to schedule
+        }
+        else {
+            weight[factId]--;
+            if (weight[factId] == 0) {
+                remove(factId);
+                return;
+            }
+            streak[factId] = (byte) Math.min(streak[factId] + 1, 20);
+            due[factId] = clock + (RETRY_AFTER << streak[factId]);
+        }
+
+        if (position[factId] == 0) {
+            heap[size] = factId;
+            position[factId] = ++size;
+            siftUp(size - 1);
+        }
+        else {
+            siftUp(position[factId] - 1); //due and weight can move either way
+            siftDown(position[factId] - 1);
+        }
+    }
+
+    //facts still being practised
+    public int size() {
+        return size;
+    }
+
+    public int getClock() {
+        return clock;
+    }
+
+    public int getWeight(int factId) {
+        return weight[factId];
+    }
+
+    //true if fact a should be asked before fact b
+    private boolean before(int a, int b) {
+        if (due[a] != due[b]) {
+            return due[a] < due[b];
+        }
+        if (weight[a] != weight[b]) {
+            return weight[a] > weight[b];
+        }
+        return a < b;
+    }
+
+    private void remove(int factId) {
+        int index = position[factId] - 1;
+        position[factId] = 0;
+        weight[factId] = 0;
+        streak[factId] = 0;
+        size--;
+        if (index == size) {
+            return;
+        }
+        int last = heap[size];
+        heap[index] = last;
+        position[last] = index + 1;
+        siftUp(index);
+        siftDown(position[last] - 1);
+    }
+
+    private void siftUp(int index) {
+        int fact = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!before(fact, heap[parent])) {
+                break;
+            }
+            heap[index] = heap[parent];
+            position[heap[index]] = index + 1;
+            index = parent;
+        }
+        heap[index] = fact;
+        position[fact] = index + 1;
+    }
+
+    private void siftDown(int index) {
+        int fact = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(heap[child], fact)) {
+                break;
+            }
+            heap[index] = heap[child];
+            position[heap[index]] = index + 1;
+            index = child;
+        }
+        heap[index] = fact;
+        position[fact] = index + 1;
+    }
+
+    //saves the tracked facts with their due times relative to now
+    public void writeTo(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(heap.length); //fact table size, a changed table makes old profiles meaningless
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            int fact = heap[i];
+            out.writeShort(fact);
+            out.writeByte(weight[fact]);
+            out.writeByte(streak[fact]);
+            out.writeInt(due[fact] - clock);
+        }
+        out.flush();
+    }
+
+    //replaces this model with a saved one; a profile from another fact table is ignored
+    //the profile is checked before anything is replaced, a damaged one throws and leaves the model as it was
+    public void readFrom(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a practice profile");
+        }
+        if (in.readInt() != heap.length) {
+            return;
+        }
+        int count = in.readInt();
+        if (count < 0 || count > heap.length) {
+            throw new IOException("Bad practice profile: " + count + " facts");
+        }
+        int[] facts = new int[count];
+        byte[] weights = new byte[count];
+        byte[] streaks = new byte[count];
+        int[] dues = new int[count];
+        boolean[] seen = new boolean[heap.length];
+        for (int i = 0; i < count; i++) {
+            int fact = in.readShort();
+            if (fact < 0 || fact >= heap.length || seen[fact]) {
+                throw new IOException("Bad practice profile: fact id " + fact);
+            }
+            seen[fact] = true;
+            facts[i] = fact;
+            weights[i] = in.readByte();
+            streaks[i] = in.readByte();
+            dues[i] = in.readInt();
+            if (weights[i] < 1 || weights[i] > MAX_WEIGHT || streaks[i] < 0 || streaks[i] > 20) {
+                throw new IOException("Bad practice profile: fact " + fact + " weight " + weights[i] + " streak " + streaks[i]);
+            }
+        }
+
+        while (size > 0) {
+            remove(heap[0]);
+        }
+        clock = 0;
+        for (int i = 0; i < count; i++) {
+            int fact = facts[i];
+            weight[fact] = weights[i];
+            streak[fact] = streaks[i];
+            due[fact] = dues[i];
+            heap[size] = fact;
+            position[fact] = ++size;
+            siftUp(size - 1);
+        }
+    }
+
+    //~/.mathgame/practice/<name>.dat, with anything unusual in the name escaped (see FileNames)
+    public static Path profilePath(String playerName) throws IOException {
+        Path dir = Paths.get(System.getProperty("user.home"), ".mathgame", "practice");
+        Files.createDirectories(dir);
+        return dir.resolve(FileNames.forName(playerName) + ".dat");
+    }
+
+    //the player's saved model, or an empty one for a new player
+    public static MistakeModel load(String playerName) throws IOException {
+        MistakeModel model = new MistakeModel();
+        Path path = profilePath(playerName);
+        if (Files.exists(path)) {
+            try (InputStream in = Files.newInputStream(path)) {
+                model.readFrom(in);
+            }
+        }
+        return model;
+    }
+
+    public void save(String playerName) throws IOException {
+        try (OutputStream out = Files.newOutputStream(profilePath(playerName))) {
+            writeTo(out);
+        }
+    }
+}
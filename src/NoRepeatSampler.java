@@ -0,0 +1,45 @@
+import java.util.Arrays;
+
+//hands out every fact of an operation once before any fact repeats
+//each op keeps a lazy fisher-yates shuffle of its fact indexes: a draw picks a random slot among the
+//remaining ones and swaps the last remaining slot into it, so it is O(1) with no retries however full
+//the round gets; slots store index + 1 so a zeroed array means "not swapped yet" and needs no setup
+//when every fact of the op has been asked, a new round starts (facts can repeat from then on)
+public class NoRepeatSampler {
+    private final int[][] swapped = new int[5][]; //per op choice 1-4: slot -> fact index + 1, 0 if untouched
+    private final int[] remaining = new int[5];
+    private final int[] rounds = new int[5]; //completed rounds per op
+
+    public NoRepeatSampler() {
+        FactTable table = FactTable.get();
+        for (int op = 1; op <= 4; op++) {
+            swapped[op] = new int[table.size(op)];
+            remaining[op] = swapped[op].length;
+        }
+    }
+
+    //a fact of the op that hasn't been drawn this round
+    public Question next(int opChoice, QuestionSource source) {
+        int[] slots = swapped[opChoice];
+        if (remaining[opChoice] == 0) {
+            //the op's whole space has been asked, start over
+            Arrays.fill(slots, 0);
+            remaining[opChoice] = slots.length;
+            rounds[opChoice]++;
+        }
+        int last = --remaining[opChoice];
+        int pick = source.nextInt(last + 1);
+        int fact = slots[pick] == 0 ? pick : slots[pick] - 1;
+        slots[pick] = slots[last] == 0 ? last + 1 : slots[last];
+        return FactTable.get().fact(opChoice, fact);
+    }
+
+    //facts of the op not yet drawn in the current round
+    public int remaining(int opChoice) {
+        return remaining[opChoice];
+    }
+
+    public int rounds(int opChoice) {
+        return rounds[opChoice];
+    }
+}
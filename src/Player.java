@@ -2,11 +2,12 @@
 public class Player {
     public String name;
     public int score;
-    public String summary; //stores total info for questions/answers for the player
+    public AnswerLog log; //stores total info for questions/answers for the player
+    public MistakeModel mistakes; //missed facts to practise again, null unless spaced repetition is on
 
     public Player(String name) {
         this.name = name;
         this.score = 0;
-        this.summary = "";
+        this.log = new AnswerLog();
     }
 }
\ No newline at end of file
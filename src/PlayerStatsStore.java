@@ -0,0 +1,411 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//answer statistics for every player ever seen, in primitive columns keyed by a dense player id
+//each player has one cell per (op, operand bucket) with attempts, correct answers and summed latency;
+//columns are split into fixed size segments so growing never copies much data and no array gets huge
+//(240 bytes per player, so a million profiles is about 240 MB); the first segment starts with room for a
+//few players and doubles up to full size, so a desktop game with a handful of players stays a few KB
+//instead of paying for 64K of them; per-fact counts across all players are
+//kept in a second set of columns indexed by fact id
+//one thread records (the stats subscriber of the event bus); aggregates over all players are fork/join
+//scans over the segments and may run at the same time, seeing counts that are at most a few answers old
+//
+//  java PlayerStatsStore [players=1000000] [answers=20000000] [seed=N]   fills it with bots and times the scans
+public class PlayerStatsStore {
+    public static final int OPS = 5; //op choice 0 (expressions) to 4
+    public static final int BUCKETS = 4; //larger operand 0-4, 5-9, 10-14, 15+ (expressions are all bucket 0)
+    public static final int CELLS = OPS * BUCKETS;
+    private static final int SEGMENT_BITS = 16;
+    private static final int SEGMENT_PLAYERS = 1 << SEGMENT_BITS; //also the leaf size of the parallel scans
+    private static final int SEGMENT_MASK = SEGMENT_PLAYERS - 1;
+    private static final int FIRST_SEGMENT_PLAYERS = 16; //starting size of segment 0
+
+    //per player columns, [segment][player in segment * CELLS + cell]; every segment but the first is full size
+    private volatile int[][] attempts = new int[0][];
+    private volatile int[][] correct = new int[0][];
+    private volatile int[][] latencyMillis = new int[0][];
+
+    //per fact columns (all players together)
+    private final int[] factAttempts;
+    private final int[] factCorrect;
+    private final long[] factLatencyNanos;
+    private final byte[] factBucket; //operand bucket of each fact, worked out once
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger playerCount = new AtomicInteger();
+
+    public PlayerStatsStore() {
+        FactTable facts = FactTable.get();
+        int numFacts = facts.totalFacts();
+        factAttempts = new int[numFacts];
+        factCorrect = new int[numFacts];
+        factLatencyNanos = new long[numFacts];
+        factBucket = new byte[numFacts];
+        for (int id = 0; id < numFacts; id++) {
+            Question fact = facts.byId(id);
+            factBucket[id] = (byte) Math.min(BUCKETS - 1, Math.max(fact.num1, fact.num2) / 5);
+        }
+    }
+
+    //column of the (op, bucket) cell
+    public static int cell(int opChoice, int bucket) {
+        return opChoice * BUCKETS + bucket;
+    }
+
+    //the player's dense id, giving them one (recording thread only)
+    public int addPlayer(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        int newId = playerCount.get();
+        int segment = newId >>> SEGMENT_BITS;
+        if (segment == attempts.length || (newId & SEGMENT_MASK) * CELLS == attempts[segment].length) {
+            growSegment(segment);
+        }
+        ids.put(name, newId);
+        playerCount.set(newId + 1); //published after its segment exists
+        return newId;
+    }
+
+    //the player's id, or -1 if they have never answered anything
+    public int findPlayer(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    //adds the segment, or doubles it if it's the first one and not full size yet; scans that already
+    //hold the old arrays just miss the answers recorded after the copy
+    private void growSegment(int segment) {
+        int segments = Math.max(attempts.length, segment + 1);
+        int players = segment == 0 ? FIRST_SEGMENT_PLAYERS : SEGMENT_PLAYERS;
+        if (segment < attempts.length) {
+            players = Math.min(SEGMENT_PLAYERS, attempts[segment].length / CELLS * 2);
+        }
+        int[][] newAttempts = Arrays.copyOf(attempts, segments);
+        int[][] newCorrect = Arrays.copyOf(correct, segments);
+        int[][] newLatency = Arrays.copyOf(latencyMillis, segments);
+        newAttempts[segment] = grown(newAttempts[segment], players * CELLS);
+        newCorrect[segment] = grown(newCorrect[segment], players * CELLS);
+        newLatency[segment] = grown(newLatency[segment], players * CELLS);
+        correct = newCorrect;
+        latencyMillis = newLatency;
+        attempts = newAttempts; //scans size themselves by this one, so it goes last
+    }
+
+    private static int[] grown(int[] column, int length) {
+        return column == null ? new int[length] : Arrays.copyOf(column, length);
+    }
+
+    //one answer (recording thread only); factId is -1 for expressions
+    public void record(int player, int opChoice, int factId, boolean isCorrect, long latencyNanos) {
+        int bucket = factId >= 0 ? factBucket[factId] : 0;
+        int segment = player >>> SEGMENT_BITS;
+        int index = (player & SEGMENT_MASK) * CELLS + cell(opChoice, bucket);
+        attempts[segment][index]++;
+        if (isCorrect) {
+            correct[segment][index]++;
+        }
+        latencyMillis[segment][index] += (int) Math.min(Integer.MAX_VALUE, latencyNanos / 1_000_000);
+
+        if (factId >= 0) {
+            factAttempts[factId]++;
+            if (isCorrect) {
+                factCorrect[factId]++;
+            }
+            factLatencyNanos[factId] += latencyNanos;
+        }
+    }
+
+    public int size() {
+        return playerCount.get();
+    }
+
+    //one player's attempts/correct for an op across all buckets
+    public int getAttempts(int player, int opChoice) {
+        return sumCells(attempts, player, opChoice);
+    }
+
+    public int getCorrect(int player, int opChoice) {
+        return sumCells(correct, player, opChoice);
+    }
+
+    //fraction right for the op, or NaN if the player never tried it
+    public double getAccuracy(int player, int opChoice) {
+        int tried = getAttempts(player, opChoice);
+        return tried == 0 ? Double.NaN : (double) getCorrect(player, opChoice) / tried;
+    }
+
+    private static int sumCells(int[][] column, int player, int opChoice) {
+        int[] segment = column[player >>> SEGMENT_BITS];
+        int base = (player & SEGMENT_MASK) * CELLS + cell(opChoice, 0);
+        int sum = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            sum += segment[base + bucket];
+        }
+        return sum;
+    }
+
+    //sums of every cell over all players
+    public static class Totals {
+        public final long[] attempts = new long[CELLS];
+        public final long[] correct = new long[CELLS];
+        public final long[] latencyMillis = new long[CELLS];
+
+        void add(Totals other) {
+            for (int c = 0; c < CELLS; c++) {
+                attempts[c] += other.attempts[c];
+                correct[c] += other.correct[c];
+                latencyMillis[c] += other.latencyMillis[c];
+            }
+        }
+
+        public long getAttempts(int opChoice) {
+            long sum = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                sum += attempts[cell(opChoice, bucket)];
+            }
+            return sum;
+        }
+
+        public long getCorrect(int opChoice) {
+            long sum = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                sum += correct[cell(opChoice, bucket)];
+            }
+            return sum;
+        }
+
+        public double getAccuracy(int opChoice) {
+            long tried = getAttempts(opChoice);
+            return tried == 0 ? Double.NaN : (double) getCorrect(opChoice) / tried;
+        }
+
+        public double getAccuracy(int opChoice, int bucket) {
+            int c = cell(opChoice, bucket);
+            return attempts[c] == 0 ? Double.NaN : (double) correct[c] / attempts[c];
+        }
+
+        public double getMeanLatencyMillis(int opChoice) {
+            long tried = getAttempts(opChoice);
+            long sum = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                sum += latencyMillis[cell(opChoice, bucket)];
+            }
+            return tried == 0 ? Double.NaN : (double) sum / tried;
+        }
+    }
+
+    //sums the cells of the players in [from, to) segments, splitting down to one segment per task
+    private class TotalsScan extends RecursiveTask<Totals> {
+        private final int from, to;
+        private final int players;
+
+        TotalsScan(int from, int to, int players) {
+            this.from = from;
+            this.to = to;
+            this.players = players;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                TotalsScan left = new TotalsScan(from, middle, players);
+                left.fork();
+                Totals right = new TotalsScan(middle, to, players).compute();
+                Totals totals = left.join();
+                totals.add(right);
+                return totals;
+            }
+            Totals totals = new Totals();
+            int[] a = attempts[from];
+            int[] c = correct[from];
+            int[] l = latencyMillis[from];
+            int end = Math.min(SEGMENT_PLAYERS, players - (from << SEGMENT_BITS)) * CELLS;
+            for (int i = 0; i < end; i += CELLS) {
+                for (int cell = 0; cell < CELLS; cell++) {
+                    totals.attempts[cell] += a[i + cell];
+                    totals.correct[cell] += c[i + cell];
+                    totals.latencyMillis[cell] += l[i + cell];
+                }
+            }
+            return totals;
+        }
+    }
+
+    //accuracy and latency by op and bucket over every player, as one parallel scan
+    public Totals totals() {
+        int players = size();
+        if (players == 0) {
+            return new Totals();
+        }
+        return ForkJoinPool.commonPool().invoke(new TotalsScan(0, segmentsFor(players), players));
+    }
+
+    private static int segmentsFor(int players) {
+        return (players + SEGMENT_PLAYERS - 1) >>> SEGMENT_BITS;
+    }
+
+    //counts players in [from, to) segments with at least minAttempts at the op and accuracy below maxAccuracy
+    private class StrugglingScan extends RecursiveTask<Integer> {
+        private final int from, to, players, opChoice, minAttempts;
+        private final double maxAccuracy;
+
+        StrugglingScan(int from, int to, int players, int opChoice, int minAttempts, double maxAccuracy) {
+            this.from = from;
+            this.to = to;
+            this.players = players;
+            this.opChoice = opChoice;
+            this.minAttempts = minAttempts;
+            this.maxAccuracy = maxAccuracy;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                StrugglingScan left = new StrugglingScan(from, middle, players, opChoice, minAttempts, maxAccuracy);
+                left.fork();
+                int right = new StrugglingScan(middle, to, players, opChoice, minAttempts, maxAccuracy).compute();
+                return left.join() + right;
+            }
+            int[] a = attempts[from];
+            int[] c = correct[from];
+            int end = Math.min(SEGMENT_PLAYERS, players - (from << SEGMENT_BITS)) * CELLS;
+            int count = 0;
+            for (int i = cell(opChoice, 0); i < end; i += CELLS) {
+                int tried = 0;
+                int right = 0;
+                for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                    tried += a[i + bucket];
+                    right += c[i + bucket];
+                }
+                if (tried >= minAttempts && right < maxAccuracy * tried) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    //how many players have tried the op at least minAttempts times and get less than maxAccuracy of it right
+    public int countStruggling(int opChoice, int minAttempts, double maxAccuracy) {
+        int players = size();
+        if (players == 0) {
+            return 0;
+        }
+        return ForkJoinPool.commonPool().invoke(new StrugglingScan(0, segmentsFor(players), players, opChoice, minAttempts, maxAccuracy));
+    }
+
+    //ids of the k facts with the lowest accuracy among those tried at least minAttempts times (hardest first)
+    public int[] hardestFacts(int k, int minAttempts) {
+        //accuracy in parts per million with the fact id in the low bits, so one primitive sort ranks them
+        long[] keys = new long[factAttempts.length];
+        int n = 0;
+        for (int id = 0; id < factAttempts.length; id++) {
+            int tried = factAttempts[id];
+            if (tried >= minAttempts && tried > 0) {
+                keys[n++] = (long) factCorrect[id] * 1_000_000 / tried << 32 | id;
+            }
+        }
+        Arrays.sort(keys, 0, n);
+        int[] hardest = new int[Math.min(k, n)];
+        for (int i = 0; i < hardest.length; i++) {
+            hardest[i] = (int) keys[i];
+        }
+        return hardest;
+    }
+
+    public int getFactAttempts(int factId) {
+        return factAttempts[factId];
+    }
+
+    public double getFactAccuracy(int factId) {
+        int tried = factAttempts[factId];
+        return tried == 0 ? Double.NaN : (double) factCorrect[factId] / tried;
+    }
+
+    public double getFactMeanLatencyMillis(int factId) {
+        int tried = factAttempts[factId];
+        return tried == 0 ? Double.NaN : factLatencyNanos[factId] / 1e6 / tried;
+    }
+
+    //"7 * 8" style text of a fact
+    public static String factText(int factId) {
+        Question fact = FactTable.get().byId(factId);
+        return fact.num1 + " " + AnswerLog.opSymbol(fact.opChoice) + " " + fact.num2;
+    }
+
+    public static void main(String[] args) {
+        int players = 1_000_000;
+        long answers = 20_000_000;
+        long seed = RandomQuestionSource.newSeed();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "players": players = Integer.parseInt(value); break;
+                case "answers": answers = Long.parseLong(value); break;
+                case "seed": seed = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+
+        //bots of varying skill answering random facts; bigger operands are harder
+        PlayerStatsStore store = new PlayerStatsStore();
+        for (int p = 0; p < players; p++) {
+            store.addPlayer("student " + p);
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        FactTable facts = FactTable.get();
+        long start = System.nanoTime();
+        for (long i = 0; i < answers; i++) {
+            int player = random.nextInt(players);
+            Question fact = facts.byId(random.nextInt(facts.totalFacts()));
+            double skill = 0.6 + 0.4 * ((player * 0x9E3779B9L >>> 8) & 0xFF) / 255.0;
+            double difficulty = Math.max(fact.num1, fact.num2) / 60.0 + (fact.opChoice >= 3 ? 0.1 : 0);
+            boolean right = random.nextDouble() < skill - difficulty;
+            store.record(player, fact.opChoice, fact.factId, right, 1_000_000_000L + random.nextInt(4000) * 1_000_000L);
+        }
+        double recordSeconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("recorded %d answers for %d players in %.2fs (%.0f answers/s)%n", answers, players,
+                recordSeconds, answers / recordSeconds);
+
+        //warm the scans up before timing them
+        for (int i = 0; i < 5; i++) {
+            store.totals();
+            store.countStruggling(3, 10, 0.5);
+        }
+        start = System.nanoTime();
+        Totals totals = store.totals();
+        double totalsMillis = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        int struggling = store.countStruggling(3, 10, 0.5);
+        double strugglingMillis = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        int[] hardest = store.hardestFacts(5, 10);
+        double hardestMillis = (System.nanoTime() - start) / 1e6;
+
+        System.out.printf("accuracy by op (%.1f ms):", totalsMillis);
+        for (int op = 1; op <= 4; op++) {
+            System.out.printf(" %s %.1f%% (%.0f ms)", AnswerLog.opSymbol(op), 100 * totals.getAccuracy(op), totals.getMeanLatencyMillis(op));
+        }
+        System.out.println();
+        System.out.printf("players below 50%% at *: %d (%.1f ms)%n", struggling, strugglingMillis);
+        System.out.printf("hardest facts (%.2f ms):", hardestMillis);
+        for (int id : hardest) {
+            System.out.printf(" %s (%.0f%%)", factText(id), 100 * store.getFactAccuracy(id));
+        }
+        System.out.println();
+    }
+}
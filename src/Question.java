@@ -0,0 +1,26 @@
+//one ready-to-display question with its answer already worked out
+public class Question {
+    public static final int EXPRESSION = 0; //op choice of a multi-step expression question (no fact id or operands)
+
+    public final int factId; //dense id from FactTable, -1 for expressions
+    public final int num1;
+    public final int num2;
+    public final int opChoice; //1=+, 2=-, 3=*, 4=/
+    public final long answer; //every question has a whole number answer
+    public final String text;
+    public final String expression; //infix form like "(3 + 4) * 5" of an expression question, null for facts
+
+    public Question(int factId, int num1, int num2, int opChoice, long answer, String text) {
+        this(factId, num1, num2, opChoice, answer, text, null);
+    }
+
+    public Question(int factId, int num1, int num2, int opChoice, long answer, String text, String expression) {
+        this.factId = factId;
+        this.num1 = num1;
+        this.num2 = num2;
+        this.opChoice = opChoice;
+        this.answer = answer;
+        this.text = text;
+        this.expression = expression;
+    }
+}
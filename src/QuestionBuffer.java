@@ -0,0 +1,144 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+//bounded single-producer/single-consumer ring buffer of ready-to-display questions
+//a background producer thread keeps it full, so taking the next question on the gui thread
+//is a single dequeue instead of random draws, arithmetic and string building
+public class QuestionBuffer implements Runnable {
+    private final Question[] slots;
+    private final int mask;
+    private final QuestionSource source; //only touched by the producer thread once started
+    private final NoRepeatSampler sampler; //optional, also only touched by the producer thread
+
+    private final AtomicLong head = new AtomicLong(); //next slot to take (consumer)
+    private final AtomicLong tail = new AtomicLong(); //next slot to fill (producer)
+
+    private final Thread producer;
+    private volatile Thread waitingConsumer;
+    private volatile boolean producerWaiting = false;
+    private volatile boolean running = true;
+
+    //take latency stats (written by the consumer only)
+    private long takeCount = 0;
+    private long totalTakeNanos = 0;
+    private long maxTakeNanos = 0;
+
+    //capacity is rounded up to a power of two so the slot index is a mask
+    public QuestionBuffer(QuestionSource source, int capacity) {
+        this(source, null, capacity);
+    }
+
+    public QuestionBuffer(QuestionSource source, NoRepeatSampler sampler, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new Question[size];
+        this.mask = size - 1;
+        this.source = source;
+        this.sampler = sampler;
+
+        producer = new Thread(this, "question-producer");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    //producer loop: fill every free slot, then sleep until the consumer has used up half
+    @Override
+    public void run() {
+        while (running) {
+            long t = tail.get();
+            if (t - head.get() >= slots.length) {
+                producerWaiting = true;
+                //re-check after publishing the flag so a take in between isn't missed
+                if (t - head.get() > slots.length / 2 && running) {
+                    LockSupport.park(this);
+                }
+                producerWaiting = false;
+                continue;
+            }
+
+            slots[(int) t & mask] = Game.createQuestion(source.nextOpChoice(), source, sampler);
+            tail.lazySet(t + 1); //publishes the slot to the consumer
+
+            Thread consumer = waitingConsumer;
+            if (consumer != null) {
+                LockSupport.unpark(consumer);
+            }
+        }
+    }
+
+    //takes the next question, waiting only if the producer hasn't filled anything yet
+    public Question take() {
+        long start = System.nanoTime();
+        long h = head.get();
+        int spins = 0;
+        while (tail.get() <= h) {
+            if (!running) {
+                throw new IllegalStateException("Question buffer is closed");
+            }
+            if (++spins < 100) {
+                Thread.onSpinWait();
+            }
+            else {
+                waitingConsumer = Thread.currentThread();
+                if (tail.get() <= h) {
+                    LockSupport.parkNanos(this, 100_000);
+                }
+                waitingConsumer = null;
+            }
+        }
+
+        int index = (int) h & mask;
+        Question question = slots[index];
+        slots[index] = null;
+        head.lazySet(h + 1); //frees the slot for the producer
+
+        //wake the producer only once half the buffer is used up, so most takes skip the unpark syscall
+        if (producerWaiting && tail.get() - (h + 1) <= slots.length / 2) {
+            LockSupport.unpark(producer);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        takeCount++;
+        totalTakeNanos += elapsed;
+        if (elapsed > maxTakeNanos) {
+            maxTakeNanos = elapsed;
+        }
+        return question;
+    }
+
+    //stops the producer thread; questions still in the buffer are dropped
+    public void close() {
+        running = false;
+        LockSupport.unpark(producer);
+    }
+
+    public int available() {
+        return (int) (tail.get() - head.get());
+    }
+
+    //true while the producer is asleep waiting for the consumer
+    public boolean isProducerIdle() {
+        return producerWaiting;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    public long getTakeCount() {
+        return takeCount;
+    }
+
+    public double getAverageTakeNanos() {
+        return takeCount == 0 ? 0 : (double) totalTakeNanos / takeCount;
+    }
+
+    public long getMaxTakeNanos() {
+        return maxTakeNanos;
+    }
+}
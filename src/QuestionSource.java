@@ -0,0 +1,11 @@
+//source of random draws for question generation
+//each session owns its own source so there is no shared state between sessions
+public interface QuestionSource {
+    //returns a uniformly distributed int in [0, bound)
+    int nextInt(int bound);
+
+    //returns a random operation choice (1-4)
+    default int nextOpChoice() {
+        return nextInt(4) + 1;
+    }
+}
@@ -0,0 +1,36 @@
+import java.util.SplittableRandom;
+
+//question source backed by a SplittableRandom with an explicit seed
+//same seed means the same questions; not thread safe, so use one per session (or split it)
+public class RandomQuestionSource implements QuestionSource {
+    private final long seed;
+    private final SplittableRandom random;
+
+    public RandomQuestionSource(long seed) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+    }
+
+    //picks a fresh seed for sessions that don't need to be reproduced
+    public RandomQuestionSource() {
+        this(newSeed());
+    }
+
+    public static long newSeed() {
+        return System.nanoTime() ^ (Thread.currentThread().getId() * 0x9E3779B97F4A7C15L);
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    //independent child source for another thread or session (deterministic given this source's state)
+    public RandomQuestionSource split() {
+        return new RandomQuestionSource(random.nextLong());
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+}
@@ -0,0 +1,353 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+//embedded high score store: an append-only file of fixed-width records, memory mapped
+//every finished turn is one 64 byte record; an in-memory top-k index per game mode is rebuilt
+//by scanning the file on open, so leaderboard reads never touch more than k records
+//one process writes at a time: opening for writing takes an exclusive lock on the file, and a second
+//instance (e.g. the game started twice) fails to open instead of appending over the first one's records
+//
+//record layout (64 bytes):
+//  0  long  timestamp (epoch millis)
+//  8  int   score
+//  12 byte  game mode (1-4)
+//  13 byte  name length in bytes
+//  14 short unused
+//  16 byte[44] player name (utf-8, truncated)
+//  60 int   crc32 of bytes 0-59, written last so a torn record never validates
+public class ScoreStore implements AutoCloseable {
+    public static final int RECORD_SIZE = 64;
+    public static final int HEADER_SIZE = 64;
+    public static final int MAX_NAME_BYTES = 44;
+    public static final int TOP_K = 100; //scores kept in the per-mode index
+
+    private static final int MAGIC = 0x4D475331; //"MGS1"
+    private static final int VERSION = 1;
+    private static final int INITIAL_RECORDS = 1024;
+
+    private final FileChannel channel;
+    private final boolean readOnly;
+    private MappedByteBuffer map;
+    private long recordCount = 0; //records up to and including the last valid one; appends go after it
+    private long validRecords = 0;
+    private long recoveredTornRecords = 0;
+    private long skippedRecords = 0;
+
+    //top-k per mode: record numbers sorted by score (desc), ties by record number (older first)
+    private final long[][] topRecords = new long[5][TOP_K];
+    private final int[][] topScores = new int[5][TOP_K];
+    private final int[] topSize = new int[5];
+
+    private final CRC32 crc = new CRC32();
+    private final byte[] recordBytes = new byte[RECORD_SIZE];
+
+    //one leaderboard row
+    public static class Entry {
+        public final String name;
+        public final int score;
+        public final int gameMode;
+        public final long timestamp;
+
+        Entry(String name, int score, int gameMode, long timestamp) {
+            this.name = name;
+            this.score = score;
+            this.gameMode = gameMode;
+            this.timestamp = timestamp;
+        }
+    }
+
+    //opens (or creates) the store for writing, clearing a torn record at the end of the file
+    public ScoreStore(Path file) throws IOException {
+        this(file, false);
+    }
+
+    //read-only opens never change the file and don't need the lock, so they work while a game is running
+    public ScoreStore(Path file, boolean readOnly) throws IOException {
+        this.readOnly = readOnly;
+        if (readOnly) {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        }
+        else {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        try {
+            if (!readOnly) {
+                lock();
+            }
+            load(file);
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    //exclusive lock for the lifetime of the channel (released when it's closed)
+    private void lock() throws IOException {
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        }
+        catch (OverlappingFileLockException e) {
+            lock = null; //already open in this jvm
+        }
+        if (lock == null) {
+            throw new IOException("Score store is in use by another instance");
+        }
+    }
+
+    private void load(Path file) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize == 0 && readOnly) {
+            return; //nothing stored yet
+        }
+        if (fileSize == 0) {
+            remap(HEADER_SIZE + (long) INITIAL_RECORDS * RECORD_SIZE);
+            map.putInt(0, MAGIC);
+            map.putInt(4, VERSION);
+        }
+        else {
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("Not a score store (file too short): " + file);
+            }
+            remap(fileSize);
+            if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+                throw new IOException("Not a score store: " + file);
+            }
+            recover();
+        }
+    }
+
+    //default location in the user's home directory
+    public static ScoreStore openDefault() throws IOException {
+        Path dir = Paths.get(System.getProperty("user.home"), ".mathgame");
+        Files.createDirectories(dir);
+        return new ScoreStore(dir.resolve("scores.dat"));
+    }
+
+    //scans every record, rebuilding the index from the valid ones; a damaged record in the middle is
+    //skipped (the ones after it are still good), only what follows the last valid record is a torn write
+    private void recover() {
+        long capacity = (map.capacity() - HEADER_SIZE) / RECORD_SIZE;
+        long end = 0;
+        long invalid = 0; //damaged records since the last valid one
+        for (long r = 0; r < capacity; r++) {
+            if (isValid(r)) {
+                index(r, map.get(offset(r) + 12), map.getInt(offset(r) + 8));
+                validRecords++;
+                skippedRecords += invalid;
+                invalid = 0;
+                end = r + 1;
+            }
+            else if (!isZero(r)) {
+                invalid++;
+            }
+        }
+        recordCount = end;
+
+        //past the last valid record there is only never-written space and the torn write(s), which are
+        //zeroed so the next append starts on a clean slot
+        recoveredTornRecords = invalid;
+        if (invalid > 0 && !readOnly) {
+            for (long r = end; r < capacity; r++) {
+                if (!isZero(r)) {
+                    Arrays.fill(recordBytes, (byte) 0);
+                    map.put(offset(r), recordBytes, 0, RECORD_SIZE);
+                }
+            }
+            map.force();
+        }
+    }
+
+    private boolean isValid(long record) {
+        int base = offset(record);
+        map.get(base, recordBytes, 0, RECORD_SIZE);
+        crc.reset();
+        crc.update(recordBytes, 0, RECORD_SIZE - 4);
+        int stored = map.getInt(base + RECORD_SIZE - 4);
+        int mode = recordBytes[12];
+        return stored == (int) crc.getValue() && mode >= 1 && mode <= 4
+                && recordBytes[13] >= 0 && recordBytes[13] <= MAX_NAME_BYTES;
+    }
+
+    private boolean isZero(long record) {
+        int base = offset(record);
+        for (int i = 0; i < RECORD_SIZE; i += 8) {
+            if (map.getLong(base + i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int offset(long record) {
+        return (int) (HEADER_SIZE + record * RECORD_SIZE);
+    }
+
+    private void remap(long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Score store is full");
+        }
+        map = channel.map(readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    //appends one finished turn; the crc goes in last so a crash mid-write is dropped on the next open
+    public synchronized void append(String name, int gameMode, int score, long timestamp) throws IOException {
+        if (gameMode < 1 || gameMode > 4) {
+            throw new IllegalArgumentException("Unknown game mode: " + gameMode);
+        }
+        if (readOnly) {
+            throw new IOException("Score store is open read-only");
+        }
+        int base = offset(recordCount);
+        if (base + RECORD_SIZE > map.capacity()) {
+            remap(map.capacity() + (map.capacity() - HEADER_SIZE)); //double the record space
+        }
+
+        byte[] nameBytes = truncatedName(name);
+        Arrays.fill(recordBytes, (byte) 0);
+        ByteBuffer record = ByteBuffer.wrap(recordBytes);
+        record.putLong(0, timestamp);
+        record.putInt(8, score);
+        record.put(12, (byte) gameMode);
+        record.put(13, (byte) nameBytes.length);
+        System.arraycopy(nameBytes, 0, recordBytes, 16, nameBytes.length);
+        crc.reset();
+        crc.update(recordBytes, 0, RECORD_SIZE - 4);
+
+        map.put(base, recordBytes, 0, RECORD_SIZE - 4);
+        map.putInt(base + RECORD_SIZE - 4, (int) crc.getValue());
+        index(recordCount, gameMode, score);
+        recordCount++;
+        validRecords++;
+    }
+
+    //utf-8 name cut to the field size without splitting a character
+    private static byte[] truncatedName(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_NAME_BYTES) {
+            return bytes;
+        }
+        int length = MAX_NAME_BYTES;
+        while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--; //back up to the start of a multi-byte character
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+
+    //inserts the record into the mode's top-k if it makes the cut (O(k) worst case, k is small)
+    private void index(long record, int gameMode, int score) {
+        long[] records = topRecords[gameMode];
+        int[] scores = topScores[gameMode];
+        int size = topSize[gameMode];
+        if (size == TOP_K && score <= scores[TOP_K - 1]) {
+            return; //ties with the last place lose to the older record
+        }
+
+        //binary search for the first position with a lower score (newer ties go after older ones)
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (scores[mid] >= score) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        int moved = Math.min(size, TOP_K - 1) - low;
+        System.arraycopy(records, low, records, low + 1, moved);
+        System.arraycopy(scores, low, scores, low + 1, moved);
+        records[low] = record;
+        scores[low] = score;
+        if (size < TOP_K) {
+            topSize[gameMode]++;
+        }
+    }
+
+    //best k scores of all time for the mode (k is capped at TOP_K)
+    public synchronized List<Entry> top(int gameMode, int k) {
+        int count = Math.min(k, topSize[gameMode]);
+        List<Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(read(topRecords[gameMode][i]));
+        }
+        return entries;
+    }
+
+    private Entry read(long record) {
+        int base = offset(record);
+        int nameLength = map.get(base + 13);
+        byte[] nameBytes = new byte[nameLength];
+        map.get(base + 16, nameBytes, 0, nameLength);
+        return new Entry(new String(nameBytes, StandardCharsets.UTF_8), map.getInt(base + 8), map.get(base + 12), map.getLong(base));
+    }
+
+    public synchronized long size() {
+        return validRecords;
+    }
+
+    //number of torn records cleared from the end of the file when the store was opened
+    public long getRecoveredTornRecords() {
+        return recoveredTornRecords;
+    }
+
+    //number of damaged records before the end of the file, left in place and ignored
+    public long getSkippedRecords() {
+        return skippedRecords;
+    }
+
+    //flushes the mapped pages to disk (the os writes them back anyway, this just makes it durable now)
+    public synchronized void flush() {
+        if (!readOnly) {
+            map.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "ScoreStore[" + validRecords + " records]";
+    }
+
+    //prints the all-time leaderboard per mode: java ScoreStore [file]
+    //(read-only, so it can run while the game has the store open)
+    public static void main(String[] args) throws IOException {
+        Path file = args.length > 0 ? new File(args[0]).toPath() : Paths.get(System.getProperty("user.home"), ".mathgame", "scores.dat");
+        if (!Files.exists(file)) {
+            System.out.println("0 results stored");
+            return;
+        }
+        try (ScoreStore store = new ScoreStore(file, true)) {
+            String[] modes = {"", "Make a Wish", "No Mistakes", "Take Chances", "Time Trial"};
+            System.out.println(store.size() + " results stored");
+            for (int mode = 1; mode <= 4; mode++) {
+                System.out.println("--- " + modes[mode] + " ---");
+                int rank = 1;
+                for (Entry entry : store.top(mode, 10)) {
+                    System.out.printf("%-3s%-20s: %d%n", rank++ + ".", entry.name, entry.score);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+//live scores of players answering at the same time, shared between their threads without locks
+//writers set a player's score and bump a version number; readers (the scoreboard display) check the
+//version to see if anything changed and rank a snapshot of the scores themselves
+public class Scoreboard {
+    private final AtomicIntegerArray scores;
+    private final AtomicIntegerArray answered;
+    private final AtomicLong version = new AtomicLong();
+
+    public Scoreboard(int numPlayers) {
+        scores = new AtomicIntegerArray(numPlayers);
+        answered = new AtomicIntegerArray(numPlayers);
+    }
+
+    //called by the player's own thread after each answer
+    public void update(int player, int score, int answerCount) {
+        scores.set(player, score);
+        answered.set(player, answerCount);
+        version.incrementAndGet();
+    }
+
+    public int getScore(int player) {
+        return scores.get(player);
+    }
+
+    public int getAnswered(int player) {
+        return answered.get(player);
+    }
+
+    public int size() {
+        return scores.length();
+    }
+
+    //changes every time any score is updated
+    public long version() {
+        return version.get();
+    }
+
+    //fills order with player indexes, highest score first (ties keep seat order), from one pass over the scores
+    //scores are packed with the seat into longs so the ranking is a primitive sort
+    public void rank(int[] order) {
+        int n = scores.length();
+        long[] keys = new long[n];
+        for (int p = 0; p < n; p++) {
+            keys[p] = (long) (Integer.MAX_VALUE - scores.get(p)) << 32 | p;
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < n; i++) {
+            order[i] = (int) keys[i];
+        }
+    }
+}
@@ -0,0 +1,199 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+//compact binary log of one game session, enough to replay it exactly (see SessionReplay)
+//the header has the seed and every setting the rules depend on; after it comes one record per turn
+//start, question, answer and turn end with its time; numbers are varints (zigzag for signed ones) and
+//times are deltas from the previous record, so a question and its answer take about 11 bytes
+//records are appended to an in-memory buffer on the game thread; the file is written once the
+//session is over (by the persistence subscriber in the gui)
+//
+//layout:
+//  int magic "MGR1", varint version
+//  long seed, varint game mode, questions, time limit, starting lives, flags (1 = no repeats,
+//  2 = expressions, 4 = spaced repetition), [varint min operands, max operands, max operand if 2],
+//  varint player count, per player: varint name length + utf-8 [varint practice profile length + bytes if 4]
+//  records: tag byte, zigzag nanos since the previous record, then per tag
+//    TURN_START  -
+//    QUESTION    varint fact id + 1 (0 = expression, followed by its zigzag answer)
+//    ANSWER      zigzag answer
+//    TURN_END    varint score
+//    END         varint number of answers (a file without it was cut short)
+public class SessionRecorder {
+    public static final int MAGIC = 0x4D475231; //"MGR1"
+    public static final int VERSION = 1;
+
+    public static final int FLAG_NO_REPEAT = 1;
+    public static final int FLAG_EXPRESSIONS = 2;
+    public static final int FLAG_SPACED_REPETITION = 4;
+
+    public static final int TURN_START = 1;
+    public static final int QUESTION = 2;
+    public static final int ANSWER = 3;
+    public static final int TURN_END = 4;
+    public static final int END = 5;
+
+    private byte[] buffer = new byte[4096];
+    private int length = 0;
+    private long lastNanos;
+    private boolean started = false;
+    private boolean finished = false;
+    private long answers = 0;
+    private final String firstPlayerName; //for the file name
+
+    //writes the header; practice profiles are captured as they are now, before the first question
+    public SessionRecorder(long seed, int gameMode, int numQuestions, int timeLimit, int startingLives, boolean noRepeat,
+                           ExpressionGenerator expressions, boolean spacedRepetition, Player[] players) {
+        firstPlayerName = players[0].name;
+        putInt(MAGIC);
+        putVarint(VERSION);
+        putLong(seed);
+        putVarint(gameMode);
+        putVarint(numQuestions);
+        putVarint(timeLimit);
+        putVarint(startingLives);
+        int flags = (noRepeat ? FLAG_NO_REPEAT : 0) | (expressions != null ? FLAG_EXPRESSIONS : 0)
+                | (spacedRepetition ? FLAG_SPACED_REPETITION : 0);
+        putVarint(flags);
+        if (expressions != null) {
+            putVarint(expressions.getMinOperands());
+            putVarint(expressions.getMaxOperands());
+            putVarint(expressions.getMaxOperand());
+        }
+        putVarint(players.length);
+        for (Player player : players) {
+            putBytes(player.name.getBytes(StandardCharsets.UTF_8));
+            if (spacedRepetition) {
+                ByteArrayOutputStream profile = new ByteArrayOutputStream();
+                try {
+                    player.mistakes.writeTo(profile);
+                }
+                catch (IOException e) {
+                    throw new IllegalStateException(e); //in-memory stream, can't happen
+                }
+                putBytes(profile.toByteArray());
+            }
+        }
+    }
+
+    public void turnStarted(long nanos) {
+        record(TURN_START, nanos);
+    }
+
+    public void question(long nanos, Question question) {
+        record(QUESTION, nanos);
+        putVarint(question.factId + 1);
+        if (question.factId < 0) {
+            putVarint(zigzag(question.answer)); //expressions have no fact to look the answer up in
+        }
+    }
+
+    public void answer(long nanos, long userAnswer) {
+        record(ANSWER, nanos);
+        putVarint(zigzag(userAnswer));
+        answers++;
+    }
+
+    public void turnEnded(long nanos, int score) {
+        record(TURN_END, nanos);
+        putVarint(score);
+    }
+
+    //marks the log complete; nothing can be recorded after this
+    public void finish(long nanos) {
+        if (!finished) {
+            record(END, nanos);
+            putVarint(answers);
+            finished = true;
+        }
+    }
+
+    private void record(int tag, long nanos) {
+        if (finished) {
+            throw new IllegalStateException("Recording is finished");
+        }
+        if (!started) {
+            lastNanos = nanos; //times are relative to the first record
+            started = true;
+        }
+        ensure(1);
+        buffer[length++] = (byte) tag;
+        putVarint(zigzag(nanos - lastNanos));
+        lastNanos = nanos;
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void ensure(int bytes) {
+        if (length + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + bytes));
+        }
+    }
+
+    private void putVarint(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[length++] = (byte) value;
+    }
+
+    private void putInt(int value) {
+        ensure(4);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            buffer[length++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void putLong(long value) {
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+    }
+
+    private void putBytes(byte[] bytes) {
+        putVarint(bytes.length);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public long getAnswerCount() {
+        return answers;
+    }
+
+    public int size() {
+        return length;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, length);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, length);
+    }
+
+    //~/.mathgame/recordings/<time>-<first player>.mgr
+    public Path save() throws IOException {
+        Path dir = Paths.get(System.getProperty("user.home"), ".mathgame", "recordings");
+        Files.createDirectories(dir);
+        Path path = dir.resolve(System.currentTimeMillis() + "-" + FileNames.forName(firstPlayerName) + ".mgr");
+        try (OutputStream out = Files.newOutputStream(path)) {
+            writeTo(out);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,290 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.locks.LockSupport;
+
+//re-runs a session recorded by SessionRecorder through the real game rules and checks it against the log
+//the replayed session is built from the recorded seed and settings and is fed the recorded answers at the
+//recorded instants (a virtual clock, so time trial deadlines fall exactly where they did); every question
+//must come out the same and every turn must end with the recorded score, or the replay stops at the
+//first difference; it runs as fast as possible, or paced at real speed (or any multiple of it) to watch
+//
+//  java SessionReplay <recording.mgr> [more recordings...] [speed=0]
+public class SessionReplay {
+    private final byte[] data;
+    private int position;
+    private final int recordsStart;
+
+    //header
+    private final long seed;
+    private final int gameMode;
+    private final int numQuestions;
+    private final int timeLimit;
+    private final int startingLives;
+    private final int flags;
+    private int minOperands, maxOperands, maxOperand;
+    private final String[] names;
+    private final byte[][] profiles; //practice profiles at the start of the session, if spaced repetition was on
+
+    //outcome of one replay
+    public static class Result {
+        public final String mismatch; //null if the replay matched the recording
+        public final long questions;
+        public final long answers;
+        public final Player[] players; //with the replayed scores and answer logs
+        public final long elapsedNanos;
+
+        Result(String mismatch, long questions, long answers, Player[] players, long elapsedNanos) {
+            this.mismatch = mismatch;
+            this.questions = questions;
+            this.answers = answers;
+            this.players = players;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public boolean isVerified() {
+            return mismatch == null;
+        }
+    }
+
+    //reads the header; the records are only decoded when replayed
+    public SessionReplay(byte[] data) throws IOException {
+        this.data = data;
+        try {
+            if (readInt() != SessionRecorder.MAGIC) {
+                throw new IOException("Not a session recording");
+            }
+            int version = (int) readVarint();
+            if (version != SessionRecorder.VERSION) {
+                throw new IOException("Unsupported recording version " + version);
+            }
+            seed = (long) readInt() << 32 | (readInt() & 0xFFFFFFFFL);
+            gameMode = (int) readVarint();
+            numQuestions = (int) readVarint();
+            timeLimit = (int) readVarint();
+            startingLives = (int) readVarint();
+            flags = (int) readVarint();
+            if ((flags & SessionRecorder.FLAG_EXPRESSIONS) != 0) {
+                minOperands = (int) readVarint();
+                maxOperands = (int) readVarint();
+                maxOperand = (int) readVarint();
+                try {
+                    new ExpressionGenerator(minOperands, maxOperands, maxOperand); //checks the settings
+                }
+                catch (IllegalArgumentException e) {
+                    throw new IOException("Bad expression settings in recording: " + e.getMessage());
+                }
+            }
+            int numPlayers = (int) readVarint();
+            names = new String[numPlayers];
+            profiles = new byte[numPlayers][];
+            for (int p = 0; p < numPlayers; p++) {
+                names[p] = new String(readBytes(), StandardCharsets.UTF_8);
+                if ((flags & SessionRecorder.FLAG_SPACED_REPETITION) != 0) {
+                    profiles[p] = readBytes();
+                }
+            }
+        }
+        catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Recording header is cut short");
+        }
+        recordsStart = position;
+    }
+
+    public static SessionReplay load(String file) throws IOException {
+        return new SessionReplay(Files.readAllBytes(Paths.get(file)));
+    }
+
+    //a fresh session with the recorded seed and settings, and fresh players with the recorded practice profiles
+    private GameSession newSession(Player[] players) throws IOException {
+        for (int p = 0; p < players.length; p++) {
+            players[p] = new Player(names[p]);
+            if (profiles[p] != null) {
+                players[p].mistakes = new MistakeModel();
+                players[p].mistakes.readFrom(new ByteArrayInputStream(profiles[p]));
+            }
+        }
+        GameSession session = new GameSession(gameMode, numQuestions, timeLimit, players, seed);
+        session.setStartingLives(startingLives);
+        if ((flags & SessionRecorder.FLAG_NO_REPEAT) != 0) {
+            session.enableNoRepeat();
+        }
+        if ((flags & SessionRecorder.FLAG_EXPRESSIONS) != 0) {
+            session.enableExpressions(new ExpressionGenerator(minOperands, maxOperands, maxOperand));
+        }
+        if ((flags & SessionRecorder.FLAG_SPACED_REPETITION) != 0) {
+            session.enableSpacedRepetition(); //keeps the profiles loaded above
+        }
+        return session;
+    }
+
+    //replays the whole session; speed 0 runs flat out, 1 at the recorded pace, 2 twice as fast and so on
+    public Result replay(double speed) throws IOException {
+        Player[] players = new Player[names.length];
+        GameSession session = newSession(players);
+        long start = System.nanoTime();
+        long questions = 0;
+        long answers = 0;
+        long now = 0; //virtual clock: nanos since the first record
+        String mismatch = null;
+        boolean ended = false;
+        boolean questionOpen = false; //a question has been asked and not answered yet
+        position = recordsStart;
+
+        try {
+            while (mismatch == null && !ended && position < data.length) {
+                int tag = data[position++];
+                now += unzigzag(readVarint());
+                if (speed > 0) {
+                    pace(start + (long) (now / speed));
+                }
+                switch (tag) {
+                    case SessionRecorder.TURN_START:
+                        if (session.isFinished()) {
+                            mismatch = "turn started after every player had finished";
+                            break;
+                        }
+                        session.startTurn(now);
+                        questionOpen = false;
+                        break;
+                    case SessionRecorder.QUESTION: {
+                        int factId = (int) readVarint() - 1;
+                        long answer = factId < 0 ? unzigzag(readVarint()) : 0;
+                        if (session.nextQuestion(now) == null) {
+                            mismatch = "question " + (questions + 1) + " was asked after the turn was over";
+                            break;
+                        }
+                        Game game = session.getCurrentGame();
+                        if (game.getCurrentFactId() != factId || (factId < 0 && game.getActualAnswer() != answer)) {
+                            mismatch = "question " + (questions + 1) + " differs from the recording";
+                        }
+                        questions++;
+                        questionOpen = true;
+                        break;
+                    }
+                    case SessionRecorder.ANSWER:
+                        long userAnswer = unzigzag(readVarint());
+                        if (session.isTurnOver() || !questionOpen) {
+                            mismatch = "answer " + (answers + 1) + " doesn't follow a question of the current turn";
+                            break;
+                        }
+                        session.submitAnswer(userAnswer, now);
+                        answers++;
+                        questionOpen = false;
+                        break;
+                    case SessionRecorder.TURN_END:
+                        int score = (int) readVarint();
+                        if (session.isFinished() || session.getCurrentGame() == null) {
+                            mismatch = "turn ended without being started";
+                            break;
+                        }
+                        if (session.getScore() != score) {
+                            mismatch = session.getCurrentPlayer().name + " scored " + session.getScore() + " instead of " + score;
+                            break;
+                        }
+                        session.endTurn(now);
+                        break;
+                    case SessionRecorder.END:
+                        if (readVarint() != answers) {
+                            mismatch = "recording ends with a different number of answers";
+                        }
+                        ended = true;
+                        break;
+                    default:
+                        mismatch = "unknown record " + tag + " at byte " + (position - 1);
+                }
+            }
+        }
+        catch (ArrayIndexOutOfBoundsException e) {
+            mismatch = "recording is cut short";
+        }
+        catch (IllegalStateException | IllegalArgumentException e) {
+            mismatch = "recording breaks the game rules: " + e.getMessage(); //e.g. a damaged file
+        }
+        if (mismatch == null && !ended) {
+            mismatch = "recording is cut short";
+        }
+        return new Result(mismatch, questions, answers, players, System.nanoTime() - start);
+    }
+
+    //sleeps until the replay catches up with the recorded time
+    private static void pace(long dueNanos) {
+        long wait;
+        while ((wait = dueNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    private long readVarint() {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private int readInt() {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = value << 8 | (data[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    private byte[] readBytes() {
+        int length = (int) readVarint();
+        byte[] bytes = new byte[length];
+        System.arraycopy(data, position, bytes, 0, length);
+        position += length;
+        return bytes;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getGameMode() {
+        return gameMode;
+    }
+
+    public int getNumPlayers() {
+        return names.length;
+    }
+
+    public static void main(String[] args) throws IOException {
+        double speed = 0;
+        int files = 0;
+        for (String arg : args) {
+            if (arg.startsWith("speed=")) {
+                speed = Double.parseDouble(arg.substring("speed=".length()));
+            }
+        }
+        for (String arg : args) {
+            if (arg.startsWith("speed=")) {
+                continue;
+            }
+            files++;
+            SessionReplay replay = load(arg);
+            Result result = replay.replay(speed);
+            StringBuilder scores = new StringBuilder();
+            for (Player player : result.players) {
+                scores.append(scores.length() == 0 ? "" : ", ").append(player.name).append(' ').append(player.score);
+            }
+            double seconds = result.elapsedNanos / 1e9;
+            System.out.printf("%s: %d answers (%s) %s in %.3fs, %.0f answers/s%n", arg, result.answers, scores,
+                    result.isVerified() ? "verified" : "MISMATCH: " + result.mismatch, seconds, result.answers / seconds);
+        }
+        if (files == 0) {
+            System.out.println("usage: java SessionReplay <recording.mgr> [more recordings...] [speed=0]");
+        }
+    }
+}
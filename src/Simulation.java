@@ -0,0 +1,231 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+//bulk monte carlo simulation of game modes with bot players, for tuning mode parameters
+//runs headless GameSessions on a virtual clock (no sleeping), split across all cores with fork/join
+//
+//  java Simulation [key=value ...]
+//    mode=1-4          game mode (default 3, take chances)
+//    sessions=N        number of simulated sessions (default 1000000)
+//    accuracy=0.85     bot chance of a correct answer
+//    speed=average     bot speed profile: fast, average or slow
+//    questions=20      make a wish question count
+//    time=60           time trial limit in seconds
+//    lives=3           take chances lives
+//    threads=N         fork/join parallelism (default: all cores)
+//    seed=N            base seed, same seed gives the same results
+public class Simulation {
+    private static final int SESSIONS_PER_TASK = 2048; //leaf size for the fork/join split
+    private static final int MAX_SESSION_QUESTIONS = 10_000; //stops endless modes when accuracy is 1
+
+    private final int gameMode;
+    private final int numQuestions;
+    private final int timeLimit;
+    private final int lives;
+    private final double accuracy;
+    private final long thinkMillis;
+    private final long seed;
+
+    public Simulation(int gameMode, int numQuestions, int timeLimit, int lives, double accuracy, long thinkMillis, long seed) {
+        this.gameMode = gameMode;
+        this.numQuestions = numQuestions;
+        this.timeLimit = timeLimit;
+        this.lives = lives;
+        this.accuracy = accuracy;
+        this.thinkMillis = thinkMillis;
+        this.seed = seed;
+    }
+
+    //counts of int values (grows as needed); mergeable so each fork/join leaf keeps its own
+    public static class Distribution {
+        private long[] counts = new long[64];
+        private long total = 0;
+        private long sum = 0;
+        private int max = 0;
+
+        public void add(int value) {
+            if (value >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(value + 1, counts.length * 2));
+            }
+            counts[value]++;
+            total++;
+            sum += value;
+            max = Math.max(max, value);
+        }
+
+        public void merge(Distribution other) {
+            if (other.counts.length > counts.length) {
+                counts = Arrays.copyOf(counts, other.counts.length);
+            }
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            total += other.total;
+            sum += other.sum;
+            max = Math.max(max, other.max);
+        }
+
+        public int percentile(double fraction) {
+            long target = Math.max(1, (long) Math.ceil(total * fraction));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return i;
+                }
+            }
+            return max;
+        }
+
+        public double mean() {
+            return total == 0 ? 0 : (double) sum / total;
+        }
+
+        public long total() {
+            return total;
+        }
+
+        public long sum() {
+            return sum;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("mean=%.2f p10=%d p50=%d p90=%d p99=%d max=%d", mean(),
+                    percentile(0.10), percentile(0.50), percentile(0.90), percentile(0.99), max);
+        }
+    }
+
+    //results of a range of sessions
+    public static class Stats {
+        public final Distribution score = new Distribution();
+        public final Distribution questions = new Distribution(); //questions answered per session
+        public final Distribution seconds = new Distribution(); //simulated session length
+
+        public void merge(Stats other) {
+            score.merge(other.score);
+            questions.merge(other.questions);
+            seconds.merge(other.seconds);
+        }
+    }
+
+    //simulates sessions [from, to), splitting in half until the range is small enough
+    private class SessionRange extends RecursiveTask<Stats> {
+        private final long from;
+        private final long to;
+
+        SessionRange(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Stats compute() {
+            if (to - from <= SESSIONS_PER_TASK) {
+                Stats stats = new Stats();
+                for (long i = from; i < to; i++) {
+                    simulate(i, stats);
+                }
+                return stats;
+            }
+            long middle = (from + to) >>> 1;
+            SessionRange left = new SessionRange(from, middle);
+            left.fork();
+            Stats right = new SessionRange(middle, to).compute();
+            Stats stats = left.join();
+            stats.merge(right);
+            return stats;
+        }
+    }
+
+    //seed of one session, independent of how the work was split
+    private long sessionSeed(long index) {
+        long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    //plays one single-player session on a virtual clock
+    void simulate(long index, Stats stats) {
+        long sessionSeed = sessionSeed(index);
+        Player bot = new Player("bot");
+        GameSession session = new GameSession(gameMode, numQuestions, timeLimit, new Player[] {bot}, sessionSeed);
+        session.setStartingLives(lives);
+        BotPlayer player = new BotPlayer(accuracy, thinkMillis, ~sessionSeed);
+
+        long now = 0;
+        session.startTurn(now);
+        while (bot.log.size() < MAX_SESSION_QUESTIONS && session.nextQuestion(now) != null) {
+            now += player.thinkNanos();
+            session.submitAnswer(player.answer(session), now); //late time trial answers are not logged
+        }
+        if (gameMode == GameSession.TIME_TRIAL) {
+            now = Math.min(now, session.getDeadlineNanos()); //the session ends at the deadline, not at the late answer
+        }
+        session.endTurn();
+
+        stats.score.add(bot.score);
+        stats.questions.add(bot.log.size());
+        stats.seconds.add((int) Math.min(now / 1_000_000_000L, Integer.MAX_VALUE));
+    }
+
+    public Stats run(long sessions, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new SessionRange(0, sessions));
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    public static void main(String[] args) {
+        int mode = GameSession.TAKE_CHANCES;
+        long sessions = 1_000_000;
+        double accuracy = 0.85;
+        String speed = "average";
+        int questions = 20;
+        int time = 60;
+        int lives = GameSession.STARTING_LIVES;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = RandomQuestionSource.newSeed();
+
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "mode": mode = Integer.parseInt(value); break;
+                case "sessions": sessions = Long.parseLong(value); break;
+                case "accuracy": accuracy = Double.parseDouble(value); break;
+                case "speed": speed = value; break;
+                case "questions": questions = Integer.parseInt(value); break;
+                case "time": time = Integer.parseInt(value); break;
+                case "lives": lives = Integer.parseInt(value); break;
+                case "threads": threads = Integer.parseInt(value); break;
+                case "seed": seed = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+
+        String[] modeNames = {"", "Make a Wish", "No Mistakes", "Take Chances", "Time Trial"};
+        Simulation simulation = new Simulation(mode, questions, time, lives, accuracy, BotPlayer.profileThinkMillis(speed), seed);
+        System.out.printf("simulating %d sessions of %s (accuracy %.2f, %s speed, %d threads, seed %d)%n",
+                sessions, modeNames[mode], accuracy, speed, threads, seed);
+
+        long start = System.nanoTime();
+        Stats stats = simulation.run(sessions, threads);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("score:            " + stats.score);
+        System.out.println("questions:        " + stats.questions);
+        System.out.println("session seconds:  " + stats.seconds);
+        System.out.printf("simulated %d sessions / %d questions in %.2fs: %.0f sessions/s, %.0f questions/s%n",
+                stats.score.total(), stats.questions.sum(), elapsed, stats.score.total() / elapsed, stats.questions.sum() / elapsed);
+    }
+}
@@ -0,0 +1,119 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+//multiplayer where everyone plays at once instead of taking turns
+//each player gets their own single-player GameSession (same seed, so everybody races through the same
+//questions under the same mode rules); a player's methods are only ever called for that player by one
+//thread at a time, so their session needs no locking, and the only shared state is the lock-free
+//Scoreboard and the finished flags
+public class SimultaneousSession {
+    private final Player[] players;
+    private final GameSession[] sessions;
+    private final Scoreboard scoreboard;
+    private final AtomicIntegerArray done; //1 once the player's game is over
+    private final AtomicInteger playersDone = new AtomicInteger();
+
+    public SimultaneousSession(int gameMode, int numQuestions, int timeLimit, Player[] players) {
+        this(gameMode, numQuestions, timeLimit, players, RandomQuestionSource.newSeed());
+    }
+
+    public SimultaneousSession(int gameMode, int numQuestions, int timeLimit, Player[] players, long seed) {
+        if (players == null || players.length < 1) {
+            throw new IllegalArgumentException("Must have at least 1 player!");
+        }
+        this.players = players;
+        this.sessions = new GameSession[players.length];
+        for (int p = 0; p < players.length; p++) {
+            sessions[p] = new GameSession(gameMode, numQuestions, timeLimit, new Player[] {players[p]}, seed);
+        }
+        this.scoreboard = new Scoreboard(players.length);
+        this.done = new AtomicIntegerArray(players.length);
+    }
+
+    //starts everybody's game at the same instant (so time trial deadlines match)
+    public void start(long nowNanos) {
+        for (GameSession session : sessions) {
+            session.startTurn(nowNanos);
+        }
+    }
+
+    //the player's next question, or null once their game is over
+    public String nextQuestion(int player, long nowNanos) {
+        String question = sessions[player].nextQuestion(nowNanos);
+        if (question == null) {
+            finish(player);
+        }
+        return question;
+    }
+
+    //checks the player's answer, publishes their score and finishes them if the mode rules say so
+    public boolean submitAnswer(int player, long answer, long nowNanos) {
+        GameSession session = sessions[player];
+        boolean correct = session.submitAnswer(answer, nowNanos);
+        Game game = session.getCurrentGame();
+        scoreboard.update(player, game.getScore(), game.getLog().size());
+        if (session.isTurnOver()) {
+            finish(player);
+        }
+        return correct;
+    }
+
+    //ends the player's time trial if the deadline has passed; returns true if their game is over
+    public boolean checkTime(int player, long nowNanos) {
+        if (sessions[player].checkTime(nowNanos)) {
+            finish(player);
+            return true;
+        }
+        return isPlayerDone(player);
+    }
+
+    //ends the player's game (only the first call counts)
+    public void finish(int player) {
+        if (done.compareAndSet(player, 0, 1)) {
+            sessions[player].endTurn();
+            playersDone.incrementAndGet();
+        }
+    }
+
+    public boolean isPlayerDone(int player) {
+        return done.get(player) == 1;
+    }
+
+    public boolean isFinished() {
+        return playersDone.get() == players.length;
+    }
+
+    //players ranked by score, highest first (ties keep seat order)
+    public Player[] getResults() {
+        int[] order = new int[players.length];
+        scoreboard.rank(order);
+        Player[] results = new Player[players.length];
+        for (int i = 0; i < order.length; i++) {
+            results[i] = players[order[i]];
+        }
+        return results;
+    }
+
+    //the player's own session, e.g. to turn on metrics or practice modes before starting
+    public GameSession getSession(int player) {
+        return sessions[player];
+    }
+
+    public Scoreboard getScoreboard() {
+        return scoreboard;
+    }
+
+    public Player getPlayer(int player) {
+        return players[player];
+    }
+
+    public int getNumPlayers() {
+        return players.length;
+    }
+
+    public void close() {
+        for (GameSession session : sessions) {
+            session.close();
+        }
+    }
+}
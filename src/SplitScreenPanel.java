@@ -0,0 +1,261 @@
+import javax.swing.*;
+import java.awt.*;
+
+//split screen for simultaneous multiplayer: one input panel per player in a grid, with a live scoreboard
+//everything here runs on the event dispatch thread; the scoreboard is redrawn from a swing timer only
+//when the shared Scoreboard's version has moved, so a burst of answers costs one redraw
+public class SplitScreenPanel extends JPanel {
+    private static final int SCOREBOARD_REFRESH_MILLIS = 200;
+
+    private final SimultaneousSession session;
+    private final int gameMode;
+    private final Runnable onFinished;
+    private final PlayerPanel[] panels;
+    private final JTextArea scoreboardArea;
+    private final int[] order; //reused ranking buffer
+    private final AnswerParser answerParser = new AnswerParser();
+    private final Timer scoreboardTimer;
+    private long shownVersion = -1;
+    private DeadlineScheduler.Handle countdown;
+
+    //one player's corner of the screen
+    private class PlayerPanel extends JPanel {
+        final int player;
+        final JLabel statusLabel;
+        final JLabel questionLabel;
+        final JLabel feedbackLabel;
+        final JTextField answerField;
+        final JButton submitButton;
+
+        PlayerPanel(int player, int questionFontSize) {
+            super(new BorderLayout(5, 5));
+            this.player = player;
+            setBackground(Main.darkBackground);
+            setBorder(BorderFactory.createCompoundBorder(BorderFactory.createLineBorder(Main.accentColor, 1),
+                    BorderFactory.createEmptyBorder(8, 8, 8, 8)));
+
+            JPanel header = new JPanel(new GridLayout(1, 2));
+            header.setBackground(Main.darkBackground);
+            JLabel nameLabel = label(session.getPlayer(player).name, Font.BOLD, 16);
+            statusLabel = label("", Font.PLAIN, 14);
+            statusLabel.setHorizontalAlignment(SwingConstants.RIGHT);
+            header.add(nameLabel);
+            header.add(statusLabel);
+
+            questionLabel = new JLabel("", SwingConstants.CENTER);
+            questionLabel.setFont(Fonts.get("monospaced", Font.BOLD, questionFontSize));
+            questionLabel.setForeground(Main.accentColor);
+
+            feedbackLabel = label(" ", Font.ITALIC, 13);
+            feedbackLabel.setHorizontalAlignment(SwingConstants.CENTER);
+
+            answerField = new JTextField(8);
+            answerField.setBackground(Main.darkBackground.brighter());
+            answerField.setForeground(Main.darkForeground);
+            answerField.setCaretColor(Main.darkForeground);
+            answerField.setBorder(BorderFactory.createLineBorder(Main.accentColor, 1));
+            answerField.setHorizontalAlignment(JTextField.CENTER);
+            answerField.addActionListener(e -> submit(this)); //enter submits
+
+            submitButton = new JButton("Submit");
+            submitButton.setBackground(Main.accentColor);
+            submitButton.setForeground(Main.darkBackground);
+            submitButton.setFocusPainted(false);
+            submitButton.addActionListener(e -> submit(this));
+
+            JPanel input = new JPanel(new FlowLayout());
+            input.setBackground(Main.darkBackground);
+            input.add(answerField);
+            input.add(submitButton);
+
+            JPanel bottom = new JPanel(new BorderLayout());
+            bottom.setBackground(Main.darkBackground);
+            bottom.add(feedbackLabel, BorderLayout.NORTH);
+            bottom.add(input, BorderLayout.CENTER);
+
+            add(header, BorderLayout.NORTH);
+            add(questionLabel, BorderLayout.CENTER);
+            add(bottom, BorderLayout.SOUTH);
+        }
+    }
+
+    private static JLabel label(String text, int style, int size) {
+        JLabel label = new JLabel(text);
+        label.setForeground(Main.darkForeground);
+        label.setFont(Fonts.get("arial", style, size));
+        return label;
+    }
+
+    public SplitScreenPanel(SimultaneousSession session, int gameMode, Runnable onFinished) {
+        super(new BorderLayout(15, 15));
+        this.session = session;
+        this.gameMode = gameMode;
+        this.onFinished = onFinished;
+        setBackground(Main.darkBackground);
+        setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+
+        //as square a grid as the player count allows, with smaller questions the more columns there are
+        int n = session.getNumPlayers();
+        int columns = (int) Math.ceil(Math.sqrt(n));
+        int rows = (n + columns - 1) / columns;
+        JPanel grid = new JPanel(new GridLayout(rows, columns, 10, 10));
+        grid.setBackground(Main.darkBackground);
+        panels = new PlayerPanel[n];
+        for (int p = 0; p < n; p++) {
+            panels[p] = new PlayerPanel(p, Math.max(14, 40 / columns));
+            grid.add(panels[p]);
+        }
+
+        scoreboardArea = new JTextArea(10, 22);
+        scoreboardArea.setEditable(false);
+        scoreboardArea.setBackground(Main.darkBackground.brighter().brighter().brighter());
+        scoreboardArea.setForeground(Main.darkForeground);
+        scoreboardArea.setFont(Fonts.get("monospaced", Font.PLAIN, 14));
+        JScrollPane scoreboardScroll = new JScrollPane(scoreboardArea);
+        scoreboardScroll.setBorder(BorderFactory.createLineBorder(Main.accentColor, 1));
+        order = new int[n];
+
+        add(grid, BorderLayout.CENTER);
+        add(scoreboardScroll, BorderLayout.EAST);
+
+        scoreboardTimer = new Timer(SCOREBOARD_REFRESH_MILLIS, e -> refreshScoreboard());
+    }
+
+    //starts everybody's game at the same moment
+    public void start(int timeLimit) {
+        long now = System.nanoTime();
+        session.start(now);
+        for (PlayerPanel panel : panels) {
+            showStatus(panel);
+            nextQuestion(panel);
+        }
+        refreshScoreboard();
+        scoreboardTimer.start();
+
+        if (gameMode == GameSession.TIME_TRIAL) {
+            //one countdown for everyone, they all started at the same instant
+            countdown = DeadlineScheduler.get().schedule(now, timeLimit * 1_000_000_000L, new DeadlineScheduler.Listener() {
+                @Override
+                public void secondsLeft(int seconds) {
+                    SwingUtilities.invokeLater(() -> {
+                        for (PlayerPanel panel : panels) {
+                            if (!session.isPlayerDone(panel.player)) {
+                                panel.statusLabel.setText("Time: " + seconds + "s");
+                                panel.statusLabel.setForeground(seconds <= 10 ? Main.errorColor : Main.darkForeground);
+                            }
+                        }
+                    });
+                }
+
+                @Override
+                public void expired() {
+                    SwingUtilities.invokeLater(() -> {
+                        long end = System.nanoTime();
+                        for (PlayerPanel panel : panels) {
+                            if (!session.isPlayerDone(panel.player) && session.checkTime(panel.player, end)) {
+                                playerFinished(panel, "Time's up!");
+                            }
+                        }
+                    });
+                }
+            });
+        }
+    }
+
+    private void submit(PlayerPanel panel) {
+        int player = panel.player;
+        if (session.isPlayerDone(player)) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (session.checkTime(player, now)) {
+            playerFinished(panel, "Time's up!");
+            return;
+        }
+
+        int status = answerParser.parse(panel.answerField.getDocument());
+        if (status != AnswerParser.OK) {
+            panel.feedbackLabel.setForeground(Main.errorColor);
+            panel.feedbackLabel.setText(AnswerParser.describe(status));
+            panel.answerField.setText("");
+            return;
+        }
+
+        boolean correct = session.submitAnswer(player, answerParser.getValue(), now);
+        if (correct) {
+            panel.feedbackLabel.setForeground(Main.accentColor);
+            panel.feedbackLabel.setText("Correct (+1 point)");
+        }
+        else {
+            panel.feedbackLabel.setForeground(Main.errorColor);
+            panel.feedbackLabel.setText("False; it was " + session.getSession(player).getCurrentGame().getActualAnswer());
+        }
+        showStatus(panel);
+
+        if (session.isPlayerDone(player)) {
+            playerFinished(panel, "Game over!");
+        }
+        else {
+            nextQuestion(panel);
+        }
+    }
+
+    private void nextQuestion(PlayerPanel panel) {
+        String question = session.nextQuestion(panel.player, System.nanoTime());
+        if (question == null) {
+            playerFinished(panel, "All done!");
+            return;
+        }
+        panel.questionLabel.setText(question);
+        panel.answerField.setText("");
+    }
+
+    private void showStatus(PlayerPanel panel) {
+        if (gameMode == GameSession.TAKE_CHANCES) {
+            panel.statusLabel.setText("Lives: " + session.getSession(panel.player).getLivesRemaining());
+        }
+        else if (gameMode != GameSession.TIME_TRIAL) {
+            panel.statusLabel.setText("Score: " + session.getScoreboard().getScore(panel.player));
+        }
+    }
+
+    private void playerFinished(PlayerPanel panel, String message) {
+        panel.questionLabel.setText(message);
+        panel.statusLabel.setText("Score: " + session.getScoreboard().getScore(panel.player));
+        panel.statusLabel.setForeground(Main.darkForeground);
+        panel.answerField.setEnabled(false);
+        panel.submitButton.setEnabled(false);
+        if (session.isFinished()) {
+            stop();
+            refreshScoreboard();
+            onFinished.run();
+        }
+    }
+
+    //redraws the ranking if any score changed since the last redraw
+    private void refreshScoreboard() {
+        Scoreboard scoreboard = session.getScoreboard();
+        long version = scoreboard.version();
+        if (version == shownVersion) {
+            return;
+        }
+        shownVersion = version;
+        scoreboard.rank(order);
+        StringBuilder text = new StringBuilder("--- Live Scores ---\n");
+        for (int i = 0; i < order.length; i++) {
+            int player = order[i];
+            text.append(String.format("%-3s", (i + 1) + ".")).append(String.format("%-12s", session.getPlayer(player).name))
+                    .append(String.format("%4d", scoreboard.getScore(player)))
+                    .append(session.isPlayerDone(player) ? " done" : "").append('\n');
+        }
+        scoreboardArea.setText(text.toString());
+    }
+
+    //stops the timers (the game is over or abandoned)
+    public void stop() {
+        scoreboardTimer.stop();
+        if (countdown != null) {
+            countdown.cancel();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//time to first frame of the gui, measured over several cold starts
+//each run is a fresh jvm started with -Dmathgame.startupTiming and -Dmathgame.exitAfterFirstFrame, so Main
+//prints how long the first paint of the start screen took and quits; the runs are summarized as
+//min/median/max, optionally with a class data sharing archive to compare against (needs a display)
+//
+//  java StartupBenchmark [runs=10] [cds=mathgame.jsa]
+public class StartupBenchmark {
+    //one cold start: {ms after jvm start, ms after main}
+    private static long[] runOnce(List<String> command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        StringBuilder output = new StringBuilder();
+        long[] times = null;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                output.append(line).append('\n');
+                if (line.startsWith("first frame: ")) {
+                    //"first frame: 412 ms after jvm start, 230 ms after main"
+                    String[] words = line.split(" ");
+                    times = new long[] {Long.parseLong(words[2]), Long.parseLong(words[7])};
+                }
+            }
+        }
+        int exit = process.waitFor();
+        if (times == null || exit != 0) {
+            throw new IllegalStateException("Main didn't report a first frame (exit code " + exit + "):\n" + output);
+        }
+        return times;
+    }
+
+    private static String summarize(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return String.format("min %4d  median %4d  max %4d ms", sorted[0], sorted[sorted.length / 2], sorted[sorted.length - 1]);
+    }
+
+    private static void measure(String label, List<String> command, int runs) throws IOException, InterruptedException {
+        runOnce(command); //one unmeasured start so the os file cache is warm for every measured one
+        long[] sinceJvmStart = new long[runs];
+        long[] sinceMain = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long[] times = runOnce(command);
+            sinceJvmStart[i] = times[0];
+            sinceMain[i] = times[1];
+        }
+        System.out.printf("%-12s jvm start -> first frame: %s%n", label, summarize(sinceJvmStart));
+        System.out.printf("%-12s main -> first frame:      %s%n", "", summarize(sinceMain));
+    }
+
+    private static List<String> command(String... jvmOptions) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.addAll(Arrays.asList(jvmOptions));
+        command.add("-Dmathgame.startupTiming=true");
+        command.add("-Dmathgame.exitAfterFirstFrame=true");
+        command.add("Main");
+        return command;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int runs = 10;
+        String cds = null;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "runs": runs = Integer.parseInt(value); break;
+                case "cds": cds = value; break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+
+        measure("default", command(), runs);
+        if (cds != null) {
+            measure("cds", command("-XX:SharedArchiveFile=" + cds), runs);
+        }
+    }
+}
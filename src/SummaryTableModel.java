@@ -0,0 +1,233 @@
+import java.util.Arrays;
+import javax.swing.table.AbstractTableModel;
+
+//every answer of every player as table rows, read straight from the players' answer logs
+//rows are addressed through prefix sums of the log sizes, so building the model is O(players) and
+//only the rows the table actually paints are ever turned into text; filtering or sorting makes one
+//primitive array of packed (player, answer index) rows and sorts it on primitive keys
+public class SummaryTableModel extends AbstractTableModel {
+    public static final String[] COLUMN_NAMES = {"Rank", "Player", "#", "Question", "Answer", "Correct Answer", "Result"};
+    public static final int RANK = 0;
+    public static final int PLAYER = 1;
+    public static final int NUMBER = 2;
+    public static final int QUESTION = 3;
+    public static final int ANSWER = 4;
+    public static final int ACTUAL = 5;
+    public static final int RESULT = 6;
+
+    public static final int ALL = -1; //filter value that lets everything through
+
+    private final Player[] players; //in leaderboard order
+    private final int[] firstRow; //prefix sums: player p's answers are rows firstRow[p]..firstRow[p + 1] - 1
+    private final int totalRows;
+
+    private int playerFilter = ALL;
+    private int opFilter = ALL;
+    private boolean wrongOnly = false;
+    private int sortColumn = -1;
+    private boolean ascending = true;
+    private long[] rows; //packed player << 32 | answer index, null while showing everything in order
+    private long[] sortBuffer;
+
+    public SummaryTableModel(Player[] players) {
+        this.players = players;
+        firstRow = new int[players.length + 1];
+        for (int p = 0; p < players.length; p++) {
+            firstRow[p + 1] = firstRow[p] + players[p].log.size();
+        }
+        totalRows = firstRow[players.length];
+    }
+
+    //filters by player (index in leaderboard order), op choice 0-4 and/or wrong answers; ALL turns one off
+    public void setFilter(int player, int opChoice, boolean wrongAnswersOnly) {
+        playerFilter = player;
+        opFilter = opChoice;
+        wrongOnly = wrongAnswersOnly;
+        rebuild();
+    }
+
+    //sorts by a column; choosing the same column again flips the direction
+    public void sortBy(int column) {
+        if (column == sortColumn) {
+            ascending = !ascending;
+        }
+        else {
+            sortColumn = column;
+            ascending = true;
+        }
+        rebuild();
+    }
+
+    public int getSortColumn() {
+        return sortColumn;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    private void rebuild() {
+        if (playerFilter == ALL && opFilter == ALL && !wrongOnly && sortColumn < 0) {
+            rows = null; //identity view, no row array needed
+        }
+        else {
+            int count = 0;
+            long[] matched = new long[filteredUpperBound()];
+            int from = playerFilter == ALL ? 0 : playerFilter;
+            int to = playerFilter == ALL ? players.length : playerFilter + 1;
+            for (int p = from; p < to; p++) {
+                AnswerLog log = players[p].log;
+                for (int i = 0; i < log.size(); i++) {
+                    if ((opFilter == ALL || log.getOpChoice(i) == opFilter) && (!wrongOnly || !log.isCorrect(i))) {
+                        matched[count++] = (long) p << 32 | i;
+                    }
+                }
+            }
+            rows = count == matched.length ? matched : Arrays.copyOf(matched, count);
+            if (sortColumn >= 0) {
+                sort(rows);
+            }
+        }
+        fireTableDataChanged();
+    }
+
+    private int filteredUpperBound() {
+        return playerFilter == ALL ? totalRows : players[playerFilter].log.size();
+    }
+
+    private static int player(long row) {
+        return (int) (row >>> 32);
+    }
+
+    private static int index(long row) {
+        return (int) row;
+    }
+
+    //compares two rows on the sort column without boxing; ties keep leaderboard/answer order
+    private int compare(long a, long b) {
+        AnswerLog logA = players[player(a)].log;
+        AnswerLog logB = players[player(b)].log;
+        int ia = index(a);
+        int ib = index(b);
+        int result;
+        switch (sortColumn) {
+            case ANSWER:
+                result = Long.compare(logA.getUserAnswer(ia), logB.getUserAnswer(ib));
+                break;
+            case ACTUAL:
+                result = Long.compare(logA.getActualAnswer(ia), logB.getActualAnswer(ib));
+                break;
+            case RESULT:
+                result = Boolean.compare(logA.isCorrect(ia), logB.isCorrect(ib));
+                break;
+            case QUESTION:
+                result = Integer.compare(logA.getOpChoice(ia), logB.getOpChoice(ib));
+                if (result == 0) result = Integer.compare(logA.getNum1(ia), logB.getNum1(ib));
+                if (result == 0) result = Integer.compare(logA.getNum2(ia), logB.getNum2(ib));
+                break;
+            case PLAYER:
+                result = players[player(a)].name.compareToIgnoreCase(players[player(b)].name);
+                break;
+            case NUMBER:
+                result = Integer.compare(ia, ib);
+                break;
+            default: //rank
+                result = 0;
+        }
+        if (!ascending) {
+            result = -result;
+        }
+        return result != 0 ? result : Long.compare(a, b);
+    }
+
+    //stable bottom-up merge sort on the packed rows (Arrays.sort has no primitive comparator version)
+    private void sort(long[] data) {
+        int n = data.length;
+        if (sortBuffer == null || sortBuffer.length < n) {
+            sortBuffer = new long[n];
+        }
+        long[] from = data;
+        long[] to = sortBuffer;
+        for (int width = 1; width < n; width *= 2) {
+            for (int lo = 0; lo < n; lo += 2 * width) {
+                int mid = Math.min(lo + width, n);
+                int hi = Math.min(lo + 2 * width, n);
+                int i = lo;
+                int j = mid;
+                int k = lo;
+                while (i < mid && j < hi) {
+                    to[k++] = compare(from[j], from[i]) < 0 ? from[j++] : from[i++];
+                }
+                while (i < mid) to[k++] = from[i++];
+                while (j < hi) to[k++] = from[j++];
+            }
+            long[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != data) {
+            System.arraycopy(from, 0, data, 0, n);
+        }
+    }
+
+    //packed row for a table row index
+    private long row(int rowIndex) {
+        if (rows != null) {
+            return rows[rowIndex];
+        }
+        //binary search the prefix sums for the player owning this row
+        int lo = 0;
+        int hi = players.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (firstRow[mid] <= rowIndex) {
+                lo = mid;
+            }
+            else {
+                hi = mid - 1;
+            }
+        }
+        return (long) lo << 32 | (rowIndex - firstRow[lo]);
+    }
+
+    public int getTotalRows() {
+        return totalRows;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows == null ? totalRows : rows.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    //only called for painted cells, so the text below is made for at most a screenful of rows
+    @Override
+    public Object getValueAt(int rowIndex, int column) {
+        long row = row(rowIndex);
+        int p = player(row);
+        int i = index(row);
+        AnswerLog log = players[p].log;
+        switch (column) {
+            case RANK: return p + 1;
+            case PLAYER: return players[p].name;
+            case NUMBER: return i + 1;
+            case QUESTION:
+                if (log.getOpChoice(i) == Question.EXPRESSION) {
+                    return log.getExpression(i);
+                }
+                return log.getNum1(i) + " " + AnswerLog.opSymbol(log.getOpChoice(i)) + " " + log.getNum2(i);
+            case ANSWER: return log.getUserAnswer(i);
+            case ACTUAL: return log.getActualAnswer(i);
+            default: return log.isCorrect(i) ? "Correct" : "Wrong";
+        }
+    }
+}
@@ -0,0 +1,514 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//tournaments of head-to-head matches over the existing game modes: round robin, single elimination
+//and double elimination; in a match both players play their own session with the same seed (so the
+//same questions) and the higher score wins
+//every match of a round is independent, so a round is handed to a worker pool all at once and each
+//result is merged into the standings as soon as it comes back; the next round is scheduled once
+//the last one is in
+//bookkeeping is linear in the number of players: pairings are computed per round (the circle method
+//for round robin, loss pools for the brackets), results are folded into per-player columns and the
+//standings are a Leaderboard, so there is no player x player table even at thousands of players
+//
+//  java Tournament [key=value ...]
+//    format=double     roundrobin, single or double
+//    players=1000      number of bot players, seeded by accuracy (strongest first)
+//    rounds=N          round robin: stop after N rounds (default: everyone plays everyone)
+//    mode=1-4          game mode of each match (default 3, take chances)
+//    questions=20      make a wish question count
+//    time=60           time trial limit in seconds
+//    lives=3           take chances lives
+//    speed=average     bot speed profile: fast, average or slow
+//    threads=N         worker threads (default: all cores)
+//    seed=N            base seed, same seed gives the same tournament
+//    top=10            standings lines to print
+public class Tournament {
+    public static final int ROUND_ROBIN = 0;
+    public static final int SINGLE_ELIMINATION = 1;
+    public static final int DOUBLE_ELIMINATION = 2;
+    public static final String[] FORMAT_NAMES = {"roundrobin", "single", "double"};
+
+    private static final int MAX_SESSION_QUESTIONS = 10_000; //stops endless modes when accuracy is 1
+    private static final int SCORE_SLOTS = 1 << 16; //standings key: primary * SCORE_SLOTS + average score in hundredths (capped)
+    private static final int BYE = -1;
+
+    //one pairing; the runner fills in the scores and times, the tournament decides the winner
+    public static class Match {
+        public int round;
+        public int a;
+        public int b;
+        public long seed;
+        public int scoreA;
+        public int scoreB;
+        public long nanosA; //how long each side took, breaks elimination ties
+        public long nanosB;
+        public int winner = BYE; //player id, BYE for a round robin draw
+        public int loser = BYE;
+    }
+
+    //plays a match, possibly at the same time as other matches of the round (on a worker thread)
+    public interface MatchRunner {
+        void play(Match match) throws Exception;
+    }
+
+    private final int format;
+    private final String[] names;
+    private final MatchRunner runner;
+    private final long seed;
+
+    //standings, one column per stat indexed by player id (= seed, 0 is the top seed)
+    private final int[] wins;
+    private final int[] draws;
+    private final int[] losses;
+    private final int[] totalScore;
+    private final int[] survived; //elimination: rounds lived through
+    private final Leaderboard standings;
+
+    //elimination brackets: players still in, grouped by number of losses, in bracket order
+    private int[][] pools;
+    private int[] poolSizes;
+    private int alive;
+
+    private int round = 0;
+    private long matchesPlayed = 0;
+    private int champion = BYE;
+
+    public Tournament(int format, String[] names, MatchRunner runner, long seed) {
+        if (format < ROUND_ROBIN || format > DOUBLE_ELIMINATION) {
+            throw new IllegalArgumentException("Unknown tournament format: " + format);
+        }
+        if (names.length < 2) {
+            throw new IllegalArgumentException("Must have at least 2 players!");
+        }
+        this.format = format;
+        this.names = names;
+        this.runner = runner;
+        this.seed = seed;
+        int n = names.length;
+        wins = new int[n];
+        draws = new int[n];
+        losses = new int[n];
+        totalScore = new int[n];
+        survived = new int[n];
+        standings = new Leaderboard(n);
+        if (format != ROUND_ROBIN) {
+            int maxLosses = format == DOUBLE_ELIMINATION ? 2 : 1;
+            pools = new int[maxLosses][];
+            poolSizes = new int[maxLosses];
+            pools[0] = bracketOrder(n); //first round only: includes the byes
+            poolSizes[0] = pools[0].length;
+            for (int p = 1; p < maxLosses; p++) {
+                pools[p] = new int[n];
+            }
+            alive = n;
+        }
+    }
+
+    public static int format(String name) {
+        for (int i = 0; i < FORMAT_NAMES.length; i++) {
+            if (FORMAT_NAMES[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown tournament format: " + name);
+    }
+
+    //seeds in standard bracket order, padded with byes to a power of two: 1 plays the lowest seed,
+    //1 and 2 can only meet in the final, and the byes go to the top seeds
+    static int[] bracketOrder(int n) {
+        int size = Integer.highestOneBit(n - 1) << 1;
+        int[] order = {0};
+        while (order.length < size) {
+            int[] next = new int[order.length * 2];
+            for (int i = 0; i < order.length; i++) {
+                next[2 * i] = order[i];
+                next[2 * i + 1] = order.length * 2 - 1 - order[i];
+            }
+            order = next;
+        }
+        for (int i = 0; i < size; i++) {
+            if (order[i] >= n) {
+                order[i] = BYE;
+            }
+        }
+        return order;
+    }
+
+    //seed of one match, independent of which thread plays it
+    private long matchSeed(int round, int index) {
+        long z = seed + ((long) round << 32 | index) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public int roundRobinRounds() {
+        return names.length % 2 == 0 ? names.length - 1 : names.length;
+    }
+
+    public boolean isFinished() {
+        if (format == ROUND_ROBIN) {
+            return round >= roundRobinRounds();
+        }
+        return alive <= 1;
+    }
+
+    //pairings of the next round; byes are handled here and never reach the runner
+    Match[] schedule() {
+        return format == ROUND_ROBIN ? scheduleRoundRobin() : scheduleElimination();
+    }
+
+    //circle method: player 0 stays put and everyone else rotates one place per round, so over
+    //n - 1 rounds everyone meets everyone once (an odd count adds a dummy, whoever draws it sits out)
+    private Match[] scheduleRoundRobin() {
+        int n = names.length + names.length % 2;
+        Match[] matches = new Match[n / 2];
+        int count = 0;
+        for (int i = 0; i < n / 2; i++) {
+            int a = circleSeat(i, n);
+            int b = circleSeat(n - 1 - i, n);
+            if (a < names.length && b < names.length) {
+                matches[count] = newMatch(count, a, b);
+                count++;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    private int circleSeat(int position, int n) {
+        if (position == 0) {
+            return 0;
+        }
+        return (position - 1 + round) % (n - 1) + 1;
+    }
+
+    //each loss pool is paired in bracket order (winners keep their place, so the first pool is a
+    //proper single elimination bracket); an odd player out gets a bye, and when every pool is down
+    //to one player the last two play across pools (the grand final of double elimination; if the
+    //one-loss player wins, both have a loss and they play again)
+    private Match[] scheduleElimination() {
+        Match[] matches = new Match[alive];
+        int count = 0;
+        int lone = BYE;
+        boolean crossFinal = true;
+        for (int p = 0; p < pools.length; p++) {
+            if (poolSizes[p] > 1) {
+                crossFinal = false;
+            }
+        }
+        for (int p = 0; p < pools.length; p++) {
+            int[] pool = pools[p];
+            int size = poolSizes[p];
+            if (crossFinal) {
+                if (size == 1) {
+                    if (lone == BYE) {
+                        lone = pool[0];
+                    }
+                    else {
+                        matches[count] = newMatch(count, lone, pool[0]);
+                        count++;
+                    }
+                }
+                continue;
+            }
+            for (int i = 0; i + 1 < size; i += 2) {
+                if (pool[i] != BYE && pool[i + 1] != BYE) {
+                    matches[count] = newMatch(count, pool[i], pool[i + 1]);
+                    count++;
+                }
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    private Match newMatch(int index, int a, int b) {
+        Match match = new Match();
+        match.round = round;
+        match.a = a;
+        match.b = b;
+        match.seed = matchSeed(round, index);
+        return match;
+    }
+
+    //plays one round on the pool, merging every result as soon as it finishes
+    public Match[] playRound(ExecutorService executor) throws InterruptedException, ExecutionException {
+        if (isFinished()) {
+            throw new IllegalStateException("The tournament is over");
+        }
+        Match[] matches = schedule();
+        ExecutorCompletionService<Match> completion = new ExecutorCompletionService<>(executor);
+        for (Match match : matches) {
+            completion.submit(() -> {
+                runner.play(match);
+                return match;
+            });
+        }
+        for (int i = 0; i < matches.length; i++) {
+            record(completion.take().get()); //only this thread touches the standings
+        }
+        endRound();
+        return matches;
+    }
+
+    //folds one result into the standings, O(log n)
+    void record(Match match) {
+        matchesPlayed++;
+        totalScore[match.a] += match.scoreA;
+        totalScore[match.b] += match.scoreB;
+        if (match.scoreA != match.scoreB || format != ROUND_ROBIN) {
+            boolean aWins = match.scoreA > match.scoreB
+                    || (match.scoreA == match.scoreB && (match.nanosA < match.nanosB || (match.nanosA == match.nanosB && match.a < match.b)));
+            match.winner = aWins ? match.a : match.b;
+            match.loser = aWins ? match.b : match.a;
+            wins[match.winner]++;
+            losses[match.loser]++;
+        }
+        else {
+            draws[match.a]++;
+            draws[match.b]++;
+        }
+        updateStanding(match.a);
+        updateStanding(match.b);
+    }
+
+    //round robin ranks by points (2 a win, 1 a draw), brackets by how long a player lasted; average
+    //score per match breaks ties (players with byes have played fewer matches), then seed
+    private void updateStanding(int player) {
+        int primary = format == ROUND_ROBIN ? 2 * wins[player] + draws[player] : survived[player];
+        int played = wins[player] + draws[player] + losses[player];
+        long average = played == 0 ? 0 : 100L * totalScore[player] / played;
+        standings.update(player, primary * SCORE_SLOTS + (int) Math.min(average, SCORE_SLOTS - 1));
+    }
+
+    //moves bracket players to their next pool; losers of their last allowed match are out
+    private void endRound() {
+        round++;
+        if (format == ROUND_ROBIN) {
+            return;
+        }
+        int[][] next = new int[pools.length][];
+        int[] nextSizes = new int[pools.length];
+        for (int p = 0; p < pools.length; p++) {
+            next[p] = new int[Math.max(poolSizes[p], alive)];
+        }
+        //survivors keep their order, players dropping down a pool go after that pool's own survivors
+        for (int p = 0; p < pools.length; p++) {
+            for (int i = 0; i < poolSizes[p]; i++) {
+                int player = pools[p][i];
+                if (player != BYE && losses[player] == p) {
+                    next[p][nextSizes[p]++] = player;
+                }
+            }
+        }
+        alive = 0;
+        for (int p = 0; p < pools.length; p++) {
+            for (int i = 0; i < poolSizes[p]; i++) {
+                int player = pools[p][i];
+                if (player == BYE) {
+                    continue;
+                }
+                if (losses[player] > p && losses[player] < pools.length) {
+                    next[losses[player]][nextSizes[losses[player]]++] = player;
+                }
+            }
+        }
+        for (int p = 0; p < pools.length; p++) {
+            for (int i = 0; i < nextSizes[p]; i++) {
+                survived[next[p][i]]++;
+                updateStanding(next[p][i]);
+            }
+            alive += nextSizes[p];
+        }
+        pools = next;
+        poolSizes = nextSizes;
+        if (alive == 1) {
+            for (int p = 0; p < pools.length; p++) {
+                if (poolSizes[p] == 1) {
+                    champion = pools[p][0];
+                }
+            }
+            survived[champion]++; //the champion outlasts the runner-up, who went out in the same round
+            updateStanding(champion);
+        }
+    }
+
+    //plays every remaining round (or up to maxRounds of them) on a pool of the given size
+    public void run(int threads, int maxRounds) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int r = 0; r < maxRounds && !isFinished(); r++) {
+                playRound(executor);
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    public int getRound() {
+        return round;
+    }
+
+    public long getMatchesPlayed() {
+        return matchesPlayed;
+    }
+
+    //player id of the winner of a finished bracket, or the standings leader
+    public int getChampion() {
+        return champion != BYE ? champion : standings.playerAt(1);
+    }
+
+    public Leaderboard getStandings() {
+        return standings;
+    }
+
+    public String getName(int player) {
+        return names[player];
+    }
+
+    public int getWins(int player) {
+        return wins[player];
+    }
+
+    public int getDraws(int player) {
+        return draws[player];
+    }
+
+    public int getLosses(int player) {
+        return losses[player];
+    }
+
+    public int getTotalScore(int player) {
+        return totalScore[player];
+    }
+
+    //headless matches between bots: each side plays its own session on a virtual clock
+    public static class BotMatchRunner implements MatchRunner {
+        private final int gameMode;
+        private final int numQuestions;
+        private final int timeLimit;
+        private final int lives;
+        private final double[] accuracy; //per player id
+        private final long thinkMillis;
+
+        public BotMatchRunner(int gameMode, int numQuestions, int timeLimit, int lives, double[] accuracy, long thinkMillis) {
+            this.gameMode = gameMode;
+            this.numQuestions = numQuestions;
+            this.timeLimit = timeLimit;
+            this.lives = lives;
+            this.accuracy = accuracy;
+            this.thinkMillis = thinkMillis;
+        }
+
+        @Override
+        public void play(Match match) {
+            Player a = new Player("a");
+            match.nanosA = playSide(a, match.seed, new BotPlayer(accuracy[match.a], thinkMillis, match.seed ^ match.a));
+            Player b = new Player("b");
+            match.nanosB = playSide(b, match.seed, new BotPlayer(accuracy[match.b], thinkMillis, match.seed ^ match.b));
+            match.scoreA = a.score;
+            match.scoreB = b.score;
+        }
+
+        //one side's session, returns how long it took
+        private long playSide(Player player, long seed, BotPlayer bot) {
+            GameSession session = new GameSession(gameMode, numQuestions, timeLimit, new Player[] {player}, seed);
+            session.setStartingLives(lives);
+            long now = 0;
+            session.startTurn(now);
+            while (player.log.size() < MAX_SESSION_QUESTIONS && session.nextQuestion(now) != null) {
+                now += bot.thinkNanos();
+                session.submitAnswer(bot.answer(session), now);
+            }
+            if (gameMode == GameSession.TIME_TRIAL) {
+                now = Math.min(now, session.getDeadlineNanos());
+            }
+            session.endTurn(now);
+            return now;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        int format = DOUBLE_ELIMINATION;
+        int players = 1000;
+        int rounds = Integer.MAX_VALUE;
+        int mode = GameSession.TAKE_CHANCES;
+        int questions = 20;
+        int time = 60;
+        int lives = GameSession.STARTING_LIVES;
+        String speed = "average";
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = RandomQuestionSource.newSeed();
+        int top = 10;
+
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "format": format = format(value); break;
+                case "players": players = Integer.parseInt(value); break;
+                case "rounds": rounds = Integer.parseInt(value); break;
+                case "mode": mode = Integer.parseInt(value); break;
+                case "questions": questions = Integer.parseInt(value); break;
+                case "time": time = Integer.parseInt(value); break;
+                case "lives": lives = Integer.parseInt(value); break;
+                case "speed": speed = value; break;
+                case "threads": threads = Integer.parseInt(value); break;
+                case "seed": seed = Long.parseLong(value); break;
+                case "top": top = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+
+        //bots between 60% and 98% accurate, seeded strongest first
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] accuracy = new double[players];
+        for (int i = 0; i < players; i++) {
+            accuracy[i] = 0.6 + 0.38 * random.nextDouble();
+        }
+        Arrays.sort(accuracy);
+        String[] names = new String[players];
+        for (int i = 0; i < players; i++) {
+            names[i] = "bot" + (i + 1);
+        }
+        for (int i = 0; i < players / 2; i++) {
+            double swap = accuracy[i];
+            accuracy[i] = accuracy[players - 1 - i];
+            accuracy[players - 1 - i] = swap;
+        }
+
+        String[] modeNames = {"", "Make a Wish", "No Mistakes", "Take Chances", "Time Trial"};
+        BotMatchRunner runner = new BotMatchRunner(mode, questions, time, lives, accuracy, BotPlayer.profileThinkMillis(speed));
+        Tournament tournament = new Tournament(format, names, runner, seed);
+        System.out.printf("%s tournament of %d players, %s matches (%d threads, seed %d)%n",
+                FORMAT_NAMES[format], players, modeNames[mode], threads, seed);
+
+        long start = System.nanoTime();
+        tournament.run(threads, rounds);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        int[] order = new int[Math.min(top, players)];
+        int count = tournament.getStandings().topK(order.length, order);
+        System.out.println("place  player   seed  accuracy  won  drawn  lost  total score");
+        for (int i = 0; i < count; i++) {
+            int player = order[i];
+            System.out.printf("%5d  %-7s %5d  %8.2f  %3d  %5d  %4d  %11d%n", i + 1, tournament.getName(player), player + 1,
+                    accuracy[player], tournament.getWins(player), tournament.getDraws(player), tournament.getLosses(player),
+                    tournament.getTotalScore(player));
+        }
+        if (tournament.isFinished()) {
+            System.out.println("champion: " + tournament.getName(tournament.getChampion()));
+        }
+        System.out.printf("played %d matches in %d rounds in %.2fs: %.0f matches/s%n",
+                tournament.getMatchesPlayed(), tournament.getRound(), elapsed, tournament.getMatchesPlayed() / elapsed);
+    }
+}
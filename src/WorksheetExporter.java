@@ -0,0 +1,208 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+//headless batch export of printable worksheets: questions to one file, the answer key to another
+//questions are made in fixed size chunks on a thread pool, each chunk with its own seed derived from
+//the base seed, so the output is the same for any thread count; chunks are written in order through
+//file channels and only a bounded window of chunks is ever in flight, so memory stays constant
+//however many questions are asked for
+//
+//  java WorksheetExporter [key=value ...]
+//    count=100000      number of questions
+//    format=csv        csv or json
+//    out=worksheet     output name: writes worksheet.csv and worksheet-answers.csv
+//    op=0              1-4 for one operation only, 0 for a random op per question
+//    advanced=false    multi-step expressions instead of single facts
+//    threads=N         generator threads (default: all cores)
+//    seed=N            base seed
+public class WorksheetExporter {
+    public static final int CSV = 0;
+    public static final int JSON = 1;
+    private static final int CHUNK_SIZE = 8192; //questions per chunk
+
+    private final long count;
+    private final int format;
+    private final int opChoice;
+    private final boolean advanced;
+    private final long seed;
+
+    public WorksheetExporter(long count, int format, int opChoice, boolean advanced, long seed) {
+        this.count = count;
+        this.format = format;
+        this.opChoice = opChoice;
+        this.advanced = advanced;
+        this.seed = seed;
+    }
+
+    //one generated chunk, encoded and ready to write
+    private static class Chunk {
+        final ByteBuffer questions;
+        final ByteBuffer answers;
+
+        Chunk(ByteBuffer questions, ByteBuffer answers) {
+            this.questions = questions;
+            this.answers = answers;
+        }
+    }
+
+    //seed of one chunk, independent of which thread makes it
+    private long chunkSeed(long chunk) {
+        long z = seed + (chunk + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    //makes and encodes questions [first, first + size), numbered from 1
+    private Chunk generate(long chunk, long first, int size) {
+        RandomQuestionSource source = new RandomQuestionSource(chunkSeed(chunk));
+        ExpressionGenerator expressions = advanced ? new ExpressionGenerator(3, 4, 100) : null;
+        StringBuilder questions = new StringBuilder(size * 32);
+        StringBuilder answers = new StringBuilder(size * 16);
+        for (int i = 0; i < size; i++) {
+            long number = first + i + 1;
+            Question question;
+            if (expressions != null) {
+                question = expressions.nextQuestion(source);
+            }
+            else {
+                question = Game.createQuestion(opChoice == 0 ? source.nextOpChoice() : opChoice, source);
+            }
+            String text = question.text.substring("What is ".length(), question.text.length() - 2); //e.g. "7 * 3"
+
+            if (format == CSV) {
+                questions.append(number).append(',').append(text).append(" =\n");
+                answers.append(number).append(',').append(question.answer).append('\n');
+            }
+            else {
+                //every entry but the very first is preceded by a comma
+                String separator = number == 1 ? "\n" : ",\n";
+                questions.append(separator).append("{\"number\":").append(number)
+                        .append(",\"question\":\"").append(text).append("\"}");
+                answers.append(separator).append("{\"number\":").append(number)
+                        .append(",\"answer\":").append(question.answer).append('}');
+            }
+        }
+        return new Chunk(encode(questions), encode(answers));
+    }
+
+    private static ByteBuffer encode(CharSequence text) {
+        return ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    //writes both files, returns the number of bytes written
+    public long export(Path questionsPath, Path answersPath, int threads) throws IOException, InterruptedException {
+        long chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int window = threads * 2; //chunks generated ahead of the writer
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "worksheet-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long bytes = 0;
+        try (FileChannel questions = FileChannel.open(questionsPath, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             FileChannel answers = FileChannel.open(answersPath, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            if (format == CSV) {
+                bytes += write(questions, "number,question\n") + write(answers, "number,answer\n");
+            }
+            else {
+                bytes += write(questions, "[") + write(answers, "[");
+            }
+
+            ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+            long submitted = 0;
+            for (long written = 0; written < chunks; written++) {
+                while (submitted < chunks && inFlight.size() < window) {
+                    final long chunk = submitted++;
+                    final long first = chunk * CHUNK_SIZE;
+                    final int size = (int) Math.min(CHUNK_SIZE, count - first);
+                    inFlight.add(pool.submit(() -> generate(chunk, first, size)));
+                }
+                Chunk chunk = inFlight.poll().get(); //oldest first keeps the output in order
+                bytes += chunk.questions.remaining() + chunk.answers.remaining();
+                writeFully(questions, chunk.questions);
+                writeFully(answers, chunk.answers);
+            }
+
+            if (format == JSON) {
+                bytes += write(questions, "\n]\n") + write(answers, "\n]\n");
+            }
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("Question generation failed", e.getCause());
+        }
+        finally {
+            pool.shutdownNow();
+        }
+        return bytes;
+    }
+
+    private static int write(FileChannel channel, String text) throws IOException {
+        ByteBuffer buffer = encode(text);
+        int length = buffer.remaining();
+        writeFully(channel, buffer);
+        return length;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long count = 100_000;
+        String format = "csv";
+        String out = "worksheet";
+        int op = 0;
+        boolean advanced = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = RandomQuestionSource.newSeed();
+
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "count": count = Long.parseLong(value); break;
+                case "format": format = value; break;
+                case "out": out = value; break;
+                case "op": op = Integer.parseInt(value); break;
+                case "advanced": advanced = Boolean.parseBoolean(value); break;
+                case "threads": threads = Integer.parseInt(value); break;
+                case "seed": seed = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+        if (!format.equals("csv") && !format.equals("json")) {
+            throw new IllegalArgumentException("Format must be csv or json");
+        }
+        if (op < 0 || op > 4) {
+            throw new IllegalArgumentException("Op must be 0 (random) or 1-4");
+        }
+
+        Path questionsPath = Paths.get(out + "." + format);
+        Path answersPath = Paths.get(out + "-answers." + format);
+        WorksheetExporter exporter = new WorksheetExporter(count, format.equals("csv") ? CSV : JSON, op, advanced, seed);
+        long start = System.nanoTime();
+        long bytes = exporter.export(questionsPath, answersPath, threads);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("wrote %d questions to %s and %s (%.1f MB) in %.2fs, %.0f questions/s (seed %d)%n", count,
+                questionsPath, answersPath, bytes / 1e6, elapsed, count / elapsed, seed);
+    }
+}